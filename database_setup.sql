@@ -11,6 +11,13 @@ create table if not exists user (
     password varchar(255) not null,
     firstName varchar(255) not null,
     lastName varchar(255) not null,
+    -- Maintained by PeopleService on follow/unfollow.
+    followersCount int not null default 0,
+    -- Set once followersCount reaches timeline.celebrity-follower-threshold
+    -- and never cleared. Read by both sides of the home timeline split.
+    isCelebrity boolean not null default false,
+    -- Time of the user's newest post, maintained by PostService.createPost.
+    lastPostAt datetime null,
     primary key (userId),
     unique (username),
     constraint userName_min_length check (char_length(trim(userName)) >= 2),
@@ -24,7 +31,14 @@ CREATE TABLE IF NOT EXISTS post (
     userId INT NOT NULL,
     content TEXT NOT NULL,
     createdAt DATETIME DEFAULT CURRENT_TIMESTAMP,
+    -- Maintained by PostService, repaired by PostStatsReconciler.
+    heartsCount INT NOT NULL DEFAULT 0,
+    commentsCount INT NOT NULL DEFAULT 0,
     PRIMARY KEY (postId),
+    -- Keyset pagination of a user's posts by (createdAt, postId).
+    INDEX post_user_created_idx (userId, createdAt, postId),
+    -- Free text search (PostService.searchPosts).
+    FULLTEXT INDEX post_content_ft (content),
     FOREIGN KEY (userId) REFERENCES user(userId)
 );
 
@@ -48,6 +62,8 @@ CREATE TABLE IF NOT EXISTS bookmarks (
     createdAt DATETIME DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (bookmarkId),
     UNIQUE (userId, postId),
+    -- Covers the bookmarks page keyset (PostService.getBookmarkedPosts).
+    INDEX bookmarks_user_created_idx (userId, createdAt, postId),
     FOREIGN KEY (userId) REFERENCES user(userId),
     FOREIGN KEY (postId) REFERENCES post(postId)
 );
@@ -60,6 +76,8 @@ CREATE TABLE IF NOT EXISTS comments (
     commentText TEXT NOT NULL,
     createdAt DATETIME DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (commentId),
+    -- Keyset paging of a post's comments (PostService.getPostDetail).
+    INDEX idx_comments_post_created (postId, createdAt, commentId),
     FOREIGN KEY (userId) REFERENCES user(userId),
     FOREIGN KEY (postId) REFERENCES post(postId)
 );
@@ -72,15 +90,14 @@ CREATE TABLE IF NOT EXISTS notifications (
     createdAt DATETIME DEFAULT CURRENT_TIMESTAMP,
     isRead BOOLEAN DEFAULT FALSE,
     PRIMARY KEY (notificationId),
+    -- Inbox pages, unread and read ranges (NotificationService).
+    INDEX idx_notifications_user_read_created (userId, isRead, createdAt),
     FOREIGN KEY (userId) REFERENCES user(userId)
 );
 
--- Non-trivial feature: Select top 5 trending hastags
-CREATE TABLE hashtags (
-    tag_id INT AUTO_INCREMENT PRIMARY KEY,
-    tag_text VARCHAR(100) NOT NULL,
-    usage_count INT DEFAULT 1
-);
+-- The old trending table (hashtags / usage_count) was never written by
+-- createPost and is replaced by hashtag_rollup.
+DROP TABLE IF EXISTS hashtags;
 
 -- Hashtag table
 CREATE TABLE IF NOT EXISTS hashtag (
@@ -93,6 +110,8 @@ CREATE TABLE IF NOT EXISTS post_hashtag (
     postId INT NOT NULL,
     tagId INT NOT NULL,
     PRIMARY KEY (postId, tagId),
+    -- Tag id to posts lookups for hashtag search.
+    INDEX post_hashtag_tag_idx (tagId, postId),
     FOREIGN KEY (postId) REFERENCES post(postId) ON DELETE CASCADE,
     FOREIGN KEY (tagId) REFERENCES hashtag(tagId) ON DELETE CASCADE
 );
@@ -103,7 +122,14 @@ create table if not exists post (
     userId INT NOT NULL,
     content TEXT NOT NULL,
     createdAt DATETIME DEFAULT CURRENT_TIMESTAMP,
+    -- Maintained by PostService, repaired by PostStatsReconciler.
+    heartsCount INT NOT NULL DEFAULT 0,
+    commentsCount INT NOT NULL DEFAULT 0,
     PRIMARY KEY (postId),
+    -- Keyset pagination of a user's posts by (createdAt, postId).
+    INDEX post_user_created_idx (userId, createdAt, postId),
+    -- Free text search (PostService.searchPosts).
+    FULLTEXT INDEX post_content_ft (content),
     FOREIGN KEY (userId) REFERENCES user(userId)
 );
 
@@ -126,6 +152,8 @@ CREATE TABLE IF NOT EXISTS bookmarks (
     createdAt DATETIME DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (bookmarkId),
     UNIQUE (userId, postId),
+    -- Covers the bookmarks page keyset (PostService.getBookmarkedPosts).
+    INDEX bookmarks_user_created_idx (userId, createdAt, postId),
     FOREIGN KEY (userId) REFERENCES user(userId),
     FOREIGN KEY (postId) REFERENCES post(postId)
 );
@@ -138,6 +166,8 @@ CREATE TABLE IF NOT EXISTS comments (
     commentText TEXT NOT NULL,
     createdAt DATETIME DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (commentId),
+    -- Keyset paging of a post's comments (PostService.getPostDetail).
+    INDEX idx_comments_post_created (postId, createdAt, commentId),
     FOREIGN KEY (userId) REFERENCES user(userId),
     FOREIGN KEY (postId) REFERENCES post(postId)
 );
@@ -150,16 +180,11 @@ CREATE TABLE IF NOT EXISTS notifications (
     createdAt DATETIME DEFAULT CURRENT_TIMESTAMP,
     isRead BOOLEAN DEFAULT FALSE,
     PRIMARY KEY (notificationId),
+    -- Inbox pages, unread and read ranges (NotificationService).
+    INDEX idx_notifications_user_read_created (userId, isRead, createdAt),
     FOREIGN KEY (userId) REFERENCES user(userId)
 );
 
--- Non-trivial feature: Select top 5 trending hastags
-CREATE TABLE hashtags (
-    tag_id INT AUTO_INCREMENT PRIMARY KEY,
-    tag_text VARCHAR(100) NOT NULL,
-    usage_count INT DEFAULT 1
-);
-
 -- Tracks who follows who
 create table if not exists follows (
     followerId int not null,
@@ -169,3 +194,159 @@ create table if not exists follows (
     foreign key (followerId) references user(userId),
     foreign key (followingId) references user(userId)
 );
+
+-- Materialized home timelines, filled on write by TimelineService.
+-- Posts of authors flagged user.isCelebrity are not pushed here and are
+-- merged in on read instead.
+create table if not exists timeline (
+    ownerUserId int not null,
+    postId int not null,
+    createdAt datetime not null,
+    primary key (ownerUserId, createdAt, postId),
+    foreign key (ownerUserId) references user(userId),
+    foreign key (postId) references post(postId) on delete cascade
+);
+
+-- Hourly hashtag use counts for decayed trending, filled from post_hashtag
+-- by HashtagRollupService. Keyed by hour first so a window is a range scan.
+create table if not exists hashtag_rollup (
+    hourBucket datetime not null,
+    tagId int not null,
+    count int not null default 0,
+    primary key (hourBucket, tagId),
+    foreign key (tagId) references hashtag(tagId) on delete cascade
+);
+
+-- Highest postId already folded into hashtag_rollup. The single row is
+-- locked while a rollup runs so instances never double count.
+create table if not exists hashtag_rollup_state (
+    id int not null,
+    lastPostId int not null default 0,
+    primary key (id)
+);
+insert ignore into hashtag_rollup_state (id, lastPostId) values (1, 0);
+
+-- Counter shards of hot posts, see CounterShardService. A post's true
+-- counts are its post row plus the sum of its shards. Rows only exist
+-- while a post is hot and are folded back into post afterwards.
+create table if not exists post_counter_shard (
+    postId int not null,
+    shard tinyint not null,
+    hearts int not null default 0,
+    comments int not null default 0,
+    primary key (postId, shard),
+    foreign key (postId) references post(postId) on delete cascade
+);
+
+-- Unread notification count per user, kept by NotificationService in the
+-- same transaction as the notifications it counts. Users without a row
+-- have none.
+create table if not exists user_notification_state (
+    userId int not null,
+    unreadCount int not null default 0,
+    primary key (userId),
+    foreign key (userId) references user(userId) on delete cascade
+);
+
+-- ---------------------------------------------------------------------------
+-- Migration of databases created by an older version of this script.
+-- Every statement is safe to run again: columns and indexes are only added
+-- when missing, and backfills recompute from the source tables. Run it with
+-- the app stopped, since heart deltas still waiting to be flushed are
+-- already in likes and would be counted twice.
+-- MySQL has no ADD COLUMN IF NOT EXISTS, so each change is built from
+-- information_schema and run as a prepared statement.
+-- ---------------------------------------------------------------------------
+
+-- post.heartsCount / post.commentsCount (PostService, PostStatsReconciler).
+set @ddl = if((select count(*) from information_schema.columns
+               where table_schema = database() and table_name = 'post' and column_name = 'heartsCount') = 0,
+    'alter table post add column heartsCount int not null default 0', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.columns
+               where table_schema = database() and table_name = 'post' and column_name = 'commentsCount') = 0,
+    'alter table post add column commentsCount int not null default 0', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+-- Counters from likes and comments, less what counter shards hold.
+update post p
+left join (select postId, count(*) as n from likes group by postId) l on l.postId = p.postId
+left join (select postId, count(*) as n from comments group by postId) c on c.postId = p.postId
+left join (select postId, sum(hearts) as hearts, sum(comments) as comments
+           from post_counter_shard group by postId) s on s.postId = p.postId
+set p.heartsCount = coalesce(l.n, 0) - coalesce(s.hearts, 0),
+    p.commentsCount = coalesce(c.n, 0) - coalesce(s.comments, 0);
+
+-- user.followersCount, user.isCelebrity (PeopleService, TimelineService) and
+-- user.lastPostAt (PeopleService.getFollowableUsers).
+set @ddl = if((select count(*) from information_schema.columns
+               where table_schema = database() and table_name = 'user' and column_name = 'followersCount') = 0,
+    'alter table user add column followersCount int not null default 0 after lastName', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.columns
+               where table_schema = database() and table_name = 'user' and column_name = 'isCelebrity') = 0,
+    'alter table user add column isCelebrity boolean not null default false after followersCount', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.columns
+               where table_schema = database() and table_name = 'user' and column_name = 'lastPostAt') = 0,
+    'alter table user add column lastPostAt datetime null after isCelebrity', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+update user u
+left join (select followingId, count(*) as n from follows group by followingId) f on f.followingId = u.userId
+left join (select userId, max(createdAt) as lastPostAt from post group by userId) p on p.userId = u.userId
+set u.followersCount = coalesce(f.n, 0),
+    u.lastPostAt = p.lastPostAt;
+
+-- The flag is never cleared, so only raise it. 10000 is the default
+-- timeline.celebrity-follower-threshold; use the configured value.
+update user set isCelebrity = true where followersCount >= 10000;
+
+-- Home timelines for posts made before the timeline table: each author's
+-- own posts plus those of the authors they follow.
+insert ignore into timeline (ownerUserId, postId, createdAt)
+    select p.userId, p.postId, p.createdAt from post p
+    union all
+    select f.followerId, p.postId, p.createdAt from post p join follows f on f.followingId = p.userId;
+
+-- Unread counts for notifications made before user_notification_state.
+insert into user_notification_state (userId, unreadCount)
+    select userId, count(*) from notifications where isRead = false group by userId
+on duplicate key update unreadCount = values(unreadCount);
+update user_notification_state s
+set s.unreadCount = 0
+where not exists (select 1 from notifications n where n.userId = s.userId and n.isRead = false);
+
+-- Indexes added to the CREATE statements above.
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'post' and index_name = 'post_user_created_idx') = 0,
+    'alter table post add index post_user_created_idx (userId, createdAt, postId)', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'post' and index_name = 'post_content_ft') = 0,
+    'alter table post add fulltext index post_content_ft (content)', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'bookmarks' and index_name = 'bookmarks_user_created_idx') = 0,
+    'alter table bookmarks add index bookmarks_user_created_idx (userId, createdAt, postId)', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'comments' and index_name = 'idx_comments_post_created') = 0,
+    'alter table comments add index idx_comments_post_created (postId, createdAt, commentId)', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'notifications' and index_name = 'idx_notifications_user_read_created') = 0,
+    'alter table notifications add index idx_notifications_user_read_created (userId, isRead, createdAt)', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'post_hashtag' and index_name = 'post_hashtag_tag_idx') = 0,
+    'alter table post_hashtag add index post_hashtag_tag_idx (tagId, postId)', 'do 0');
+prepare stmt from @ddl; execute stmt; deallocate prepare stmt;
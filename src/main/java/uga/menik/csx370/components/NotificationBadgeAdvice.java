@@ -0,0 +1,43 @@
+package uga.menik.csx370.components;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+import uga.menik.csx370.models.User;
+import uga.menik.csx370.services.NotificationService;
+import uga.menik.csx370.services.UserService;
+
+/**
+ * Adds the unread notification badge to every page model. The count comes
+ * from NotificationService's in-memory cache, not from the database.
+ */
+@ControllerAdvice
+public class NotificationBadgeAdvice {
+
+    private final NotificationService notificationService;
+    private final UserService userService;
+
+    @Autowired
+    public NotificationBadgeAdvice(NotificationService notificationService, UserService userService) {
+        this.notificationService = notificationService;
+        this.userService = userService;
+    }
+
+    @ModelAttribute
+    public void addUnreadCount(Model model) {
+        User user = userService.getLoggedInUser();
+        if (user == null) {
+            return;
+        }
+        try {
+            int unread = notificationService.getUnreadCount(Integer.parseInt(user.getUserId()));
+            model.addAttribute("hasUnreadNotifications", unread > 0);
+            model.addAttribute("unreadNotifications", unread);
+        } catch (Exception e) {
+            // A missing badge must not break the page.
+            e.printStackTrace();
+        }
+    }
+}
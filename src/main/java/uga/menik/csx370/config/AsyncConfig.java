@@ -0,0 +1,52 @@
+package uga.menik.csx370.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Turns on @Async and defines the executors background work runs on.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Executor for timeline fan-out. The queue is bounded; when it is full
+     * the request thread does the fan-out itself, which slows posting down
+     * instead of dropping timeline entries.
+     */
+    @Bean(name = "fanOutExecutor")
+    public Executor fanOutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("fanout-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for Server-Sent Events writes (LiveEventRegistry). The queue
+     * is bounded and full means the event is dropped: a live update is a
+     * hint the page can do without, and a slow client must not hold up
+     * fan-out or the notification consumer.
+     */
+    @Bean(name = "liveEventExecutor")
+    public Executor liveEventExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("live-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
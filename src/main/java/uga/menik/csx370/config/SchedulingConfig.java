@@ -0,0 +1,15 @@
+package uga.menik.csx370.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled background jobs such as PostStatsReconciler.
+ * Kept separate from App.java so the entry point stays untouched.
+ * The scheduler pool size is spring.task.scheduling.pool.size; the
+ * default of one thread would run every job back to back.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
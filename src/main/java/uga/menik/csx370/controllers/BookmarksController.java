@@ -6,17 +6,16 @@ This is a project developed by Dr. Menik to give the students an opportunity to
 package uga.menik.csx370.controllers;
 
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
-import uga.menik.csx370.models.Post;
-import uga.menik.csx370.utility.Utility;
+import uga.menik.csx370.models.PostPage;
 
 /*
  * Added imports
@@ -44,36 +43,41 @@ public class BookmarksController {
 
     /**
      * /bookmarks URL itself is handled by this.
+     * /bookmarks?before=cursor shows the next, older page.
      */
     @GetMapping
-    public ModelAndView webpage() {
+    public ModelAndView webpage(@RequestParam(name = "before", required = false) String before,
+            @RequestParam(name = "error", required = false) String error) {
         // posts_page is a mustache template from src/main/resources/templates.
         // ModelAndView class enables initializing one and populating placeholders
         // in the template using Java objects assigned to named properties.
         ModelAndView mv = new ModelAndView("posts_page");
 
-        // Following line populates sample data.
-        // You should replace it with actual data from the database.
         User currentUser = userService.getLoggedInUser();
         if(currentUser == null) {
             return new ModelAndView("redirect:/login");
         } // if
 
-        List<Post> bookmarks = postService.getBookmarkedPosts(currentUser.getUserId());
-        mv.addObject("posts", bookmarks);
-
         // If an error occured, you can set the following property with the
         // error message to show the error message to the user.
-        // String errorMessage = "Some error occured!";
-        // mv.addObject("errorMessage", errorMessage);
-
-        // Enable the following line if you want to show no content message.
-        // Do that if your content list is empty.
-        // mv.addObject("isNoContent", true);
-        if(bookmarks.isEmpty()) {
-            mv.addObject("isNoContent", true);        
-        } // if
+        String errorMessage = error;
+
+        try {
+            int uid = Integer.parseInt(currentUser.getUserId());
+            PostPage page = postService.getBookmarkedPosts(uid, before, PostService.DEFAULT_PAGE_SIZE);
+            mv.addObject("posts", page.getPosts());
+            if (page.hasNext()) {
+                mv.addObject("nextPageUrl", "/bookmarks?before=" + page.getNextCursor());
+            }
+            if(page.getPosts().isEmpty()) {
+                mv.addObject("isNoContent", true);
+            } // if
+        } catch (Exception e) {
+            e.printStackTrace();
+            errorMessage = "Failed to load bookmarks. Please try again.";
+        }
 
+        mv.addObject("errorMessage", errorMessage);
         return mv;
     }
 
@@ -92,20 +96,19 @@ public class BookmarksController {
             return "redirect:/login";
         }
 
-        boolean success;
-        int uid = Integer.parseInt(currentUser.getUserId());
-        int pid = Integer.parseInt(postId);
-
-        if (isAdd) {
-            success = postService.addBookmark(uid, pid);
-        } else {
-            success = postService.removeBookmark(uid, pid);
-        }
-
-        if (success) {
+        try {
+            int uid = Integer.parseInt(currentUser.getUserId());
+            int pid = Integer.parseInt(postId);
+            // Bookmarking twice or removing a missing bookmark is not an error.
+            if (isAdd) {
+                postService.addBookmark(uid, pid);
+            } else {
+                postService.removeBookmark(uid, pid);
+            }
             // Refresh bookmark list after change
             return "redirect:/bookmarks";
-        } else {
+        } catch (Exception e) {
+            e.printStackTrace();
             String message = URLEncoder.encode(
                 "Failed to (un)bookmark the post. Please try again.",
                 StandardCharsets.UTF_8
@@ -0,0 +1,33 @@
+package uga.menik.csx370.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import uga.menik.csx370.models.TrendingHashtag;
+import uga.menik.csx370.services.HashtagAutocomplete;
+
+/**
+ * Handles /hashtags/autocomplete?prefix=#spr. Returns JSON suggestions,
+ * most used first, served from memory without touching the database.
+ */
+@Controller
+public class HashtagAutocompleteController {
+
+    private final HashtagAutocomplete autocomplete;
+
+    @Autowired
+    public HashtagAutocompleteController(HashtagAutocomplete autocomplete) {
+        this.autocomplete = autocomplete;
+    }
+
+    @GetMapping("/hashtags/autocomplete")
+    @ResponseBody
+    public List<TrendingHashtag> suggest(@RequestParam(name = "prefix", defaultValue = "") String prefix) {
+        return autocomplete.suggest(prefix);
+    }
+}
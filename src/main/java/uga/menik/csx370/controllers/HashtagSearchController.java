@@ -3,7 +3,7 @@ Copyright (c) 2024 Sami Menik, PhD. All rights reserved.
 */
 package uga.menik.csx370.controllers;
 
-import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
@@ -16,15 +16,10 @@ import org.springframework.web.servlet.ModelAndView;
 
 import jakarta.servlet.http.HttpSession;
 import uga.menik.csx370.models.Post;
+import uga.menik.csx370.models.PostPage;
 import uga.menik.csx370.services.PostService;
 import uga.menik.csx370.utility.Utility;
 
-/*
- * added imports
- */
-import java.util.ArrayList;
-
-
 /**
  * Handles /hashtagsearch URL.
  */
@@ -41,7 +36,9 @@ public class HashtagSearchController {
      * Note: the value of the hashtags is URL encoded.
      */
     @GetMapping
-    public ModelAndView search(@RequestParam("hashtags") String hashtags, HttpSession session) {
+    public ModelAndView search(@RequestParam("hashtags") String hashtags,
+            @RequestParam(name = "before", required = false) String before,
+            HttpSession session) {
         Integer userId = (Integer) session.getAttribute("userId");
         if (userId == null) {
             return new ModelAndView("redirect:/login");
@@ -64,73 +61,22 @@ public class HashtagSearchController {
         // Do that if your content list is empty.
         // mv.addObject("isNoContent", true);
         */
-        // Get hashtags
-        String[] parts = hashtags.trim().split("\\s+");
-        List<String> tags = new ArrayList<String>();
-        for(int i = 0; i < parts.length; i++) {
-            String tag = parts[i].trim();
-            if(!tag.isEmpty()) {
-                if(!tag.startsWith("#")) {
-                    tag = "#" + tag;
-                } // if
-                tags.add(tag.toLowerCase());
-            } // if
-        } // for
-
-        // Load posts (SAMPLE DATA, CONNECT TO DATABASE AND UPDATE)
-        List<Post> allPosts = postService.getAllPosts();//Utility.createSamplePostsListWithoutComments();
-        List<Post> filtered = new ArrayList<Post>();
-
-        // Filter posts with hashtags
-        for(Post p : allPosts) {
-            String content = p.getContent();
-            if(content == null) { continue; }
-            String lower = content.toLowerCase();
-            
-            boolean hasAll = true;
-            for(String tag : tags) {
-                if(lower.indexOf(tag) == -1) {
-                    hasAll = false;
-                    break;
-                } // if
-            } // for
-
-            boolean hasAHash = lower.indexOf('#') != -1;
-            if(hasAll && hasAHash) {
-                filtered.add(p);
-            } // if
-        } // for
-
-        // Sort by recent
-        java.util.Collections.sort(filtered, new java.util.Comparator<Post>() {
-            @Override
-            public int compare(Post a, Post b) {
-                java.time.LocalDate da = parseDate(a.getPostDate());
-                java.time.LocalDate db = parseDate(b.getPostDate());
-                return db.compareTo(da);
-            } // compare
-        }); // sort
+        // Matching and ordering happen in the hashtag index; only the page shown is loaded.
+        PostPage page = postService.searchByHashtags(hashtags, userId, before, PostService.DEFAULT_PAGE_SIZE);
+        List<Post> posts = page.getPosts();
 
         // Add to mv
-        mv.addObject("posts", filtered);
-        if(filtered.isEmpty()) {
+        mv.addObject("posts", posts);
+        if (page.hasNext()) {
+            mv.addObject("nextPageUrl", "/hashtagsearch?hashtags="
+                    + URLEncoder.encode(hashtags, StandardCharsets.UTF_8)
+                    + "&before=" + page.getNextCursor());
+        }
+        if(posts.isEmpty()) {
             mv.addObject("isNoContent", true);
         } // if
 
         return mv;
     }
 
-    // Helper method to help parse date 
-    private java.time.LocalDate parseDate(String dateStr) {
-        try {
-            return java.time.LocalDate.parse(dateStr);
-        } catch (Exception e) {
-            try {
-                return java.time.LocalDate.parse(dateStr.substring(0, 10));
-            } catch (Exception e2) {
-                return java.time.LocalDate.MIN;
-            } // tryCatch
-        } // tryCatch
-    } // parseDate
-    
 }
@@ -20,6 +20,7 @@ import org.springframework.web.servlet.ModelAndView;
 
 import jakarta.servlet.http.HttpSession;
 import uga.menik.csx370.models.Post;
+import uga.menik.csx370.models.PostPage;
 import uga.menik.csx370.services.PostService;
 import uga.menik.csx370.utility.Utility;
 
@@ -41,16 +42,21 @@ public class HomeController {
      * See notes in HashtagSearchController.java regarding URL parameters.
      */
     @GetMapping
-    public ModelAndView webpage(@RequestParam(name = "error", required = false) String error, HttpSession session) {
+    public ModelAndView webpage(@RequestParam(name = "error", required = false) String error,
+            @RequestParam(name = "before", required = false) String before,
+            HttpSession session) {
         // See notes on ModelAndView in BookmarksController.java.
         ModelAndView mv = new ModelAndView("home_page");
 
         Integer userId = (Integer) session.getAttribute("userId");
 
-        // If user is logged in → show real DB feed
+        // If user is logged in → show real DB feed, one page at a time
         if (userId != null) {
-            List<Post> posts = postService.getHomeFeed(userId);
-            mv.addObject("posts", posts);
+            PostPage page = postService.getHomeFeed(userId, before, PostService.DEFAULT_PAGE_SIZE);
+            mv.addObject("posts", page.getPosts());
+            if (page.hasNext()) {
+                mv.addObject("nextPageUrl", "/?before=" + page.getNextCursor());
+            }
         } else {
             // If not logged in → show sample posts (so UI is visible)
             List<Post> posts = Utility.createSamplePostsListWithoutComments();
@@ -112,7 +118,7 @@ public class HomeController {
             return "redirect:/login";
         }
 
-        List<Post> posts = postService.getHomeFeed(userId);
+        List<Post> posts = postService.getHomeFeed(userId, null, PostService.DEFAULT_PAGE_SIZE).getPosts();
         model.addAttribute("posts", posts);
         return "home";
     }
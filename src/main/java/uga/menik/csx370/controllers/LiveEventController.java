@@ -0,0 +1,34 @@
+package uga.menik.csx370.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import uga.menik.csx370.services.LiveEventRegistry;
+import uga.menik.csx370.services.UserService;
+
+/**
+ * Handles /events, the Server-Sent Events stream main.js subscribes to.
+ * Streams "post" when a new post reaches the user's home feed and
+ * "notification" when the unread count changes.
+ */
+@Controller
+public class LiveEventController {
+
+    private final LiveEventRegistry liveEvents;
+    private final UserService userService;
+
+    @Autowired
+    public LiveEventController(LiveEventRegistry liveEvents, UserService userService) {
+        this.liveEvents = liveEvents;
+        this.userService = userService;
+    }
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events() {
+        int uid = Integer.parseInt(userService.getLoggedInUser().getUserId());
+        return liveEvents.subscribe(uid);
+    }
+}
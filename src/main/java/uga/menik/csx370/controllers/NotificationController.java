@@ -0,0 +1,73 @@
+package uga.menik.csx370.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.ModelAndView;
+
+import uga.menik.csx370.models.NotificationPage;
+import uga.menik.csx370.services.NotificationService;
+import uga.menik.csx370.services.UserService;
+
+/**
+ * Handles /notifications, the logged in user's inbox.
+ */
+@Controller
+@RequestMapping("/notifications")
+public class NotificationController {
+
+    private final NotificationService notificationService;
+    private final UserService userService;
+
+    @Autowired
+    public NotificationController(NotificationService notificationService, UserService userService) {
+        this.notificationService = notificationService;
+        this.userService = userService;
+    }
+
+    /**
+     * /notifications?before=cursor shows one page of the inbox, newest first.
+     */
+    @GetMapping
+    public ModelAndView webpage(@RequestParam(name = "before", required = false) String before,
+            @RequestParam(name = "error", required = false) String error) {
+        ModelAndView mv = new ModelAndView("notifications_page");
+        String errorMessage = error;
+
+        try {
+            int uid = Integer.parseInt(userService.getLoggedInUser().getUserId());
+            NotificationPage page = notificationService.getInbox(uid, before);
+            mv.addObject("notifications", page.getNotifications());
+            if (page.hasNext()) {
+                mv.addObject("nextPageUrl", "/notifications?before=" + page.getNextCursor());
+            }
+            if (page.getNotifications().isEmpty()) {
+                mv.addObject("isNoContent", true);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            errorMessage = "Failed to load notifications. Please try again.";
+        }
+
+        mv.addObject("errorMessage", errorMessage);
+        return mv;
+    }
+
+    /**
+     * Marks the whole inbox as read.
+     */
+    @PostMapping("/read")
+    public String markAllRead() {
+        try {
+            int uid = Integer.parseInt(userService.getLoggedInUser().getUserId());
+            notificationService.markAllRead(uid);
+            return "redirect:/notifications";
+        } catch (Exception e) {
+            e.printStackTrace();
+            return "redirect:/notifications?error=Failed%20to%20mark%20notifications%20as%20read.";
+        }
+    }
+}
@@ -18,7 +18,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
 import uga.menik.csx370.models.FollowableUser;
+import uga.menik.csx370.models.FollowableUserPage;
 import uga.menik.csx370.services.PeopleService;
+import uga.menik.csx370.services.RecommendationService;
 import uga.menik.csx370.services.UserService;
 import uga.menik.csx370.utility.Utility;
 import uga.menik.csx370.models.User;
@@ -38,6 +40,8 @@ public class PeopleController {
     private final UserService userService;
     @Autowired
     private final PeopleService peopleService;
+    @Autowired
+    private RecommendationService recommendationService;
 
     @Autowired
     public PeopleController(UserService userService, PeopleService peopleService) {
@@ -53,7 +57,8 @@ public class PeopleController {
      * See notes in HashtagSearchController.java regarding URL parameters.
      */
     @GetMapping
-    public ModelAndView webpage(@RequestParam(name = "error", required = false) String error) {
+    public ModelAndView webpage(@RequestParam(name = "error", required = false) String error,
+            @RequestParam(name = "after", required = false) String after) {
         // See notes on ModelAndView in BookmarksController.java.
         ModelAndView mv = new ModelAndView("people_page");
 
@@ -70,8 +75,26 @@ public class PeopleController {
             return mv;
         }
 
-        List<FollowableUser> followableUsers = peopleService.getFollowableUsers(String.valueOf(currentUser.getUserId()));
+        String currentUserId = String.valueOf(currentUser.getUserId());
+
+        // The landing page shows ranked suggestions; "More people" pages
+        // through everyone by userId.
+        if (after == null) {
+            int[] suggested = recommendationService.recommend(Integer.parseInt(currentUserId));
+            List<FollowableUser> suggestions = peopleService.getUsersByIds(currentUserId, suggested);
+            if (!suggestions.isEmpty()) {
+                mv.addObject("users", suggestions);
+                mv.addObject("nextPageUrl", "/people?after=0");
+                return mv;
+            }
+        }
+
+        FollowableUserPage page = peopleService.getFollowableUsers(currentUserId, after);
+        List<FollowableUser> followableUsers = page.getUsers();
         mv.addObject("users", followableUsers);
+        if (page.hasNext()) {
+            mv.addObject("nextPageUrl", "/people?after=" + page.getNextCursor());
+        }
         
 
         // If an error occured, you can set the following property with the
@@ -113,7 +136,8 @@ public class PeopleController {
             int followerId = Integer.parseInt(currentUser.getUserId());
             int followingId = Integer.parseInt(userId);
 
-            if(!isFollow) {
+            // The follow button sends true, the unfollow button false.
+            if(isFollow) {
                 peopleService.followUser((followerId), followingId);
                 System.out.println("User " + followerId + " followed " + followingId);
             } else {
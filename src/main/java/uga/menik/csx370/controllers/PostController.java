@@ -5,6 +5,8 @@ This is a project developed by Dr. Menik to give the students an opportunity to
 */
 package uga.menik.csx370.controllers;
 
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -19,8 +21,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
-import uga.menik.csx370.models.ExpandedPost;
-import uga.menik.csx370.utility.Utility;
+import jakarta.servlet.http.HttpServletRequest;
+
+import uga.menik.csx370.models.PostDetail;
+import uga.menik.csx370.services.HeartIngestService;
 import uga.menik.csx370.services.PostService;
 import uga.menik.csx370.services.UserService;
 import uga.menik.csx370.models.User;
@@ -37,6 +41,8 @@ public class PostController {
     private UserService userService;
     @Autowired
     private PostService postService;
+    @Autowired
+    private HeartIngestService heartIngestService;
 
     /**
      * This function handles the /post/{postId} URL.
@@ -50,26 +56,37 @@ public class PostController {
      */
     @GetMapping("/{postId}")
     public ModelAndView webpage(@PathVariable("postId") String postId,
+            @RequestParam(name = "before", required = false) String before,
             @RequestParam(name = "error", required = false) String error) {
         System.out.println("The user is attempting to view post with id: " + postId);
         // See notes on ModelAndView in BookmarksController.java.
         ModelAndView mv = new ModelAndView("posts_page");
 
-        // Following line populates sample data.
-        // You should replace it with actual data from the database.
-        List<ExpandedPost> posts = Utility.createSampleExpandedPostWithComments();
-
-        mv.addObject("posts", posts);
-
         // If an error occured, you can set the following property with the
         // error message to show the error message to the user.
         // An error message can be optionally specified with a url query parameter too.
         String errorMessage = error;
-        mv.addObject("errorMessage", errorMessage);
 
-        // Enable the following line if you want to show no content message.
-        // Do that if your content list is empty.
-        // mv.addObject("isNoContent", true);
+        try {
+            int uid = Integer.parseInt(userService.getLoggedInUser().getUserId());
+            // Post with one page of comments; "before" pages through older comments.
+            PostDetail detail = postService.getPostDetail(Integer.parseInt(postId), uid, before);
+            if (detail == null) {
+                mv.addObject("isNoContent", true);
+            } else {
+                mv.addObject("posts", List.of(detail.getPost()));
+                if (detail.hasMoreComments()) {
+                    mv.addObject("nextCommentsUrl", "/post/" + postId + "?before=" + detail.getNextCommentsCursor());
+                }
+            }
+        } catch (NumberFormatException e) {
+            mv.addObject("isNoContent", true);
+        } catch (Exception e) {
+            e.printStackTrace();
+            errorMessage = "Failed to load the post. Please try again.";
+        }
+
+        mv.addObject("errorMessage", errorMessage);
 
         return mv;
     }
@@ -87,20 +104,25 @@ public class PostController {
         System.out.println("\tpostId: " + postId);
         System.out.println("\tcomment: " + comment);
 
-        // Redirect the user if the comment adding is a success.
-        // return "redirect:/post/" + postId;
+        User currentUser = userService.getLoggedInUser();
+        if (currentUser == null) {
+            return "redirect:/login";
+        }
+
         try {
-        // Simulate success (you can add real DB logic later)
-        System.out.println("Comment added successfully for post ID: " + postId);
+            int uid = Integer.parseInt(currentUser.getUserId());
+            int pid = Integer.parseInt(postId);
+            postService.addComment(uid, pid, comment);
 
-        // If success
-        return "redirect:/post/" + postId;
+            // Redirect the user if the comment adding is a success.
+            return "redirect:/post/" + postId;
 
         } catch (Exception e) {
-        // Redirect the user with an error message if there was an error.
-        String message = URLEncoder.encode("Failed to post the comment. Please try again.",
-                StandardCharsets.UTF_8);
-        return "redirect:/post/" + postId + "?error=" + message;
+            e.printStackTrace();
+            // Redirect the user with an error message if there was an error.
+            String message = URLEncoder.encode("Failed to post the comment. Please try again.",
+                    StandardCharsets.UTF_8);
+            return "redirect:/post/" + postId + "?error=" + message;
         }
     }
 
@@ -112,26 +134,34 @@ public class PostController {
      */
     @GetMapping("/{postId}/heart/{isAdd}")
     public String addOrRemoveHeart(@PathVariable("postId") String postId,
-            @PathVariable("isAdd") Boolean isAdd) {
+            @PathVariable("isAdd") Boolean isAdd,
+            @RequestHeader(value = "Referer", required = false) String referer,
+            HttpServletRequest request) {
         System.out.println("The user is attempting add or remove a heart:");
         System.out.println("\tpostId: " + postId);
         System.out.println("\tisAdd: " + isAdd);
 
-        // Redirect the user if the comment adding is a success.
-        // return "redirect:/post/" + postId;
-        try {
-        // Simulate like/unlike logic
-        if (isAdd) {
-            System.out.println("User liked post " + postId);
-        } else {
-            System.out.println("User unliked post " + postId);
+        User currentUser = userService.getLoggedInUser();
+        if (currentUser == null) {
+            return "redirect:/login";
         }
 
-        // Success → redirect to the same post
-        return "redirect:/post/" + postId;
+        try {
+            int uid = Integer.parseInt(currentUser.getUserId());
+            int pid = Integer.parseInt(postId);
+            // Hearting twice or removing a missing heart is not an error.
+            if (isAdd) {
+                heartIngestService.addHeart(uid, pid);
+            } else {
+                heartIngestService.removeHeart(uid, pid);
+            }
+
+            // Success -> back to where the heart was clicked
+            return backTo(referer, request.getServerName(), postId);
 
         } catch (Exception e) {
-        // Redirect the user with an error message if there was an error.
+            e.printStackTrace();
+            // Redirect the user with an error message if there was an error.
             String message = URLEncoder.encode("Failed to (un)like the post. Please try again.",
                    StandardCharsets.UTF_8);
             return "redirect:/post/" + postId + "?error=" + message;
@@ -148,57 +178,57 @@ public class PostController {
     @GetMapping("/{postId}/bookmark/{isAdd}")
     public String addOrRemoveBookmark(@PathVariable("postId") String postId,
             @PathVariable("isAdd") Boolean isAdd,
-            @RequestHeader(value = "Referer", required = false) String referer) {
+            @RequestHeader(value = "Referer", required = false) String referer,
+            HttpServletRequest request) {
         System.out.println("The user is attempting add or remove a bookmark:");
         System.out.println("\tpostId: " + postId);
         System.out.println("\tisAdd: " + isAdd);
 
-        // Redirect the user if the comment adding is a success.
-        // return "redirect:/post/" + postId;
-        try {
-        // Load the sample posts from Utility
-        java.util.List<uga.menik.csx370.models.Post> posts =
-                uga.menik.csx370.utility.Utility.createSamplePostsListWithoutComments();
-
-        // Find the matching post and update its bookmark status
-        for (uga.menik.csx370.models.Post p : posts) {
-            if (p.getPostId().equals(postId)) {
-                p.setBookmarked(isAdd);
-                System.out.println("Bookmark status for post " + postId + ": " + p.isBookmarked());
-                break;
-            }
-        }
-
-        // Redirect back to the same post page (refresh UI)
-        return "redirect:/post/" + postId;
         User currentUser = userService.getLoggedInUser();
-        if(currentUser == null) {
+        if (currentUser == null) {
             return "redirect:/login";
-        } // if
-        boolean success;
-        int uid = Integer.parseInt(currentUser.getUserId());
-        int pid = Integer.parseInt(postId);
-        if(isAdd) {
-            success = postService.addBookmark(uid, pid);
-        } else {
-            success = postService.removeBookmark(uid, pid);
-        } // if
-
-        if(success) {
-            if (referer != null && !referer.isBlank()) {
-            return "redirect:" + referer;
         }
-            return "redirect:/post/" + postId;
-        } else {
-            
+
+        try {
+            int uid = Integer.parseInt(currentUser.getUserId());
+            int pid = Integer.parseInt(postId);
+            // Bookmarking twice or removing a missing bookmark is not an error.
+            if (isAdd) {
+                postService.addBookmark(uid, pid);
+            } else {
+                postService.removeBookmark(uid, pid);
+            }
+
+            // Success -> back to where the bookmark was clicked
+            return backTo(referer, request.getServerName(), postId);
+
+        } catch (Exception e) {
+            e.printStackTrace();
             // Redirect the user with an error message if there was an error.
             String message = URLEncoder.encode("Failed to (un)bookmark the post. Please try again.",
                     StandardCharsets.UTF_8);
-            if(referer != null && !referer.isBlank()){
-                return "redirect:" + referer + "?error=" + message;
-            }
             return "redirect:/post/" + postId + "?error=" + message;
-        } // if
+        }
+    }
+
+    // Where to go after a heart or bookmark: the page it was clicked on if
+    // the Referer points at this host, else the post itself. Only the path
+    // and query are kept, so the redirect never leaves the site.
+    private static String backTo(String referer, String host, String postId) {
+        if (referer != null) {
+            try {
+                URI uri = new URI(referer);
+                String path = uri.getRawPath();
+                if ((uri.getHost() == null || uri.getHost().equalsIgnoreCase(host))
+                        && path != null && path.startsWith("/") && !path.startsWith("//")) {
+                    String query = uri.getRawQuery();
+                    return "redirect:" + path + (query == null ? "" : "?" + query);
+                }
+            } catch (URISyntaxException e) {
+                // Not a usable URL; fall back to the post.
+            }
+        }
+        return "redirect:/post/" + postId;
     }
 
-}
\ No newline at end of file
+}
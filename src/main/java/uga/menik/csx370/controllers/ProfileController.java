@@ -12,22 +12,16 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
 import uga.menik.csx370.models.Post;
+import uga.menik.csx370.models.PostPage;
+import uga.menik.csx370.models.User;
+import uga.menik.csx370.services.FollowGraph;
 import uga.menik.csx370.services.PostService;
 import uga.menik.csx370.services.UserService;
 
-
-/*
- * Added imports
- */
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.stream.Collectors;
-import uga.menik.csx370.models.User;
-
-
 /**
  * Handles /profile URL and its sub URLs.
  */
@@ -39,6 +33,8 @@ public class ProfileController {
     private final UserService userService;
     @Autowired
     private PostService postService;
+    @Autowired
+    private FollowGraph followGraph;
 
     /**
      * See notes in AuthInterceptor.java regarding how this works 
@@ -60,7 +56,7 @@ public class ProfileController {
         if(currentUser == null) {
             return new ModelAndView("redirect:/login");
         }
-        return profileOfSpecificUser(currentUser.getUserId());
+        return profileOfSpecificUser(currentUser.getUserId(), null);
     }
 
     /**
@@ -68,18 +64,34 @@ public class ProfileController {
      * This serves the webpage that shows posts of a speific user given by userId.
      * See comments in PeopleController.java in followUnfollowUser function regarding 
      * how path variables work.
+     * /profile/{userId}?before=cursor shows the next, older page.
      */
     @GetMapping("/{userId}")
-    public ModelAndView profileOfSpecificUser(@PathVariable("userId") String userId) {
+    public ModelAndView profileOfSpecificUser(@PathVariable("userId") String userId,
+            @RequestParam(name = "before", required = false) String before) {
         System.out.println("User is attempting to view profile: " + userId);
         
         // See notes on ModelAndView in BookmarksController.java.
         ModelAndView mv = new ModelAndView("posts_page");
 
-        // Following line populates sample data.
-        // You should replace it with actual data from the database.
-        List<Post> userPosts = postService.getPostsByUser(userId);
+        int profileUserId = Integer.parseInt(userId);
+        User currentUser = userService.getLoggedInUser();
+        int viewerId = currentUser == null ? 0 : Integer.parseInt(currentUser.getUserId());
+        PostPage page = postService.getPostsByUser(profileUserId, viewerId, before, PostService.DEFAULT_PAGE_SIZE);
+        List<Post> userPosts = page.getPosts();
         mv.addObject("posts", userPosts);
+        if (page.hasNext()) {
+            mv.addObject("nextPageUrl", "/profile/" + profileUserId + "?before=" + page.getNextCursor());
+        }
+
+        // Follow counts and state come from the in-memory follow graph.
+        mv.addObject("profileUserId", profileUserId);
+        mv.addObject("followersCount", followGraph.followerCount(profileUserId));
+        mv.addObject("followingCount", followGraph.followingCount(profileUserId));
+        if (currentUser != null && !currentUser.getUserId().equals(userId)) {
+            boolean isFollowed = followGraph.isFollowing(Integer.parseInt(currentUser.getUserId()), profileUserId);
+            mv.addObject(isFollowed ? "isFollowed" : "isNotFollowed", true);
+        }
 
         // If an error occured, you can set the following property with the
         // error message to show the error message to the user.
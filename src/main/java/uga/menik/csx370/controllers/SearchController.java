@@ -0,0 +1,58 @@
+package uga.menik.csx370.controllers;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.ModelAndView;
+
+import uga.menik.csx370.models.PostPage;
+import uga.menik.csx370.services.PostService;
+import uga.menik.csx370.services.UserService;
+
+/**
+ * Handles /search, free text search over post content.
+ * An example URL: http://localhost:8081/search?q=database+indexes&page=2
+ */
+@Controller
+@RequestMapping("/search")
+public class SearchController {
+
+    private final PostService postService;
+    private final UserService userService;
+
+    @Autowired
+    public SearchController(PostService postService, UserService userService) {
+        this.postService = postService;
+        this.userService = userService;
+    }
+
+    @GetMapping
+    public ModelAndView search(@RequestParam(name = "q", defaultValue = "") String query,
+            @RequestParam(name = "page", required = false) String page) {
+        ModelAndView mv = new ModelAndView("posts_page");
+
+        try {
+            int uid = Integer.parseInt(userService.getLoggedInUser().getUserId());
+            // Most relevant first; only the posts on this page are loaded.
+            PostPage results = postService.searchPosts(query, uid, page, PostService.DEFAULT_PAGE_SIZE);
+            mv.addObject("posts", results.getPosts());
+            if (results.hasNext()) {
+                mv.addObject("nextPageUrl", "/search?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8)
+                        + "&page=" + results.getNextCursor());
+            }
+            if (results.getPosts().isEmpty()) {
+                mv.addObject("isNoContent", true);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            mv.addObject("errorMessage", "Search failed. Please try again.");
+        }
+
+        return mv;
+    }
+}
@@ -0,0 +1,97 @@
+package uga.menik.csx370.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import uga.menik.csx370.services.CounterShardService;
+import uga.menik.csx370.services.FeedCache;
+import uga.menik.csx370.services.FollowGraph;
+import uga.menik.csx370.services.HashtagAutocomplete;
+import uga.menik.csx370.services.HashtagDictionary;
+import uga.menik.csx370.services.HashtagIndex;
+import uga.menik.csx370.services.HashtagSearchCache;
+import uga.menik.csx370.services.HeartIngestService;
+import uga.menik.csx370.services.LiveEventRegistry;
+import uga.menik.csx370.services.NotificationPipeline;
+import uga.menik.csx370.services.NotificationService;
+import uga.menik.csx370.services.PostDetailCache;
+import uga.menik.csx370.services.RecommendationService;
+import uga.menik.csx370.services.ViewerMembership;
+
+/**
+ * Handles /stats. Returns JSON counters of the in-process caches
+ * and background pipelines so they can be watched while the app runs.
+ */
+@Controller
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final FeedCache feedCache;
+    private final PostDetailCache postDetailCache;
+    private final HashtagDictionary hashtagDictionary;
+    private final HashtagIndex hashtagIndex;
+    private final HeartIngestService heartIngestService;
+    private final CounterShardService counterShardService;
+    private final FollowGraph followGraph;
+    private final RecommendationService recommendationService;
+    private final NotificationPipeline notificationPipeline;
+    private final NotificationService notificationService;
+    private final LiveEventRegistry liveEventRegistry;
+    private final HashtagAutocomplete hashtagAutocomplete;
+    private final HashtagSearchCache hashtagSearchCache;
+    private final ViewerMembership viewerMembership;
+
+    @Autowired
+    public StatsController(FeedCache feedCache, PostDetailCache postDetailCache,
+            HashtagDictionary hashtagDictionary, HashtagIndex hashtagIndex,
+            HeartIngestService heartIngestService, CounterShardService counterShardService,
+            FollowGraph followGraph, RecommendationService recommendationService,
+            NotificationPipeline notificationPipeline, NotificationService notificationService,
+            LiveEventRegistry liveEventRegistry, HashtagAutocomplete hashtagAutocomplete,
+            HashtagSearchCache hashtagSearchCache, ViewerMembership viewerMembership) {
+        this.feedCache = feedCache;
+        this.postDetailCache = postDetailCache;
+        this.hashtagDictionary = hashtagDictionary;
+        this.hashtagIndex = hashtagIndex;
+        this.heartIngestService = heartIngestService;
+        this.counterShardService = counterShardService;
+        this.followGraph = followGraph;
+        this.recommendationService = recommendationService;
+        this.notificationPipeline = notificationPipeline;
+        this.notificationService = notificationService;
+        this.liveEventRegistry = liveEventRegistry;
+        this.hashtagAutocomplete = hashtagAutocomplete;
+        this.hashtagSearchCache = hashtagSearchCache;
+        this.viewerMembership = viewerMembership;
+    }
+
+    /**
+     * /stats URL itself is handled by this.
+     */
+    @GetMapping
+    @ResponseBody
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("feedCache", feedCache.stats());
+        stats.put("postDetailCache", postDetailCache.stats());
+        stats.put("hashtagDictionarySize", hashtagDictionary.size());
+        stats.put("hashtagIndexTags", hashtagIndex.tagCount());
+        stats.put("hashtagAutocompleteTags", hashtagAutocomplete.size());
+        stats.put("hashtagSearchCache", hashtagSearchCache.stats());
+        stats.put("viewerMembership", viewerMembership.stats());
+        stats.put("hearts", heartIngestService.stats());
+        stats.put("counterShards", counterShardService.stats());
+        stats.put("followGraph", followGraph.stats());
+        stats.put("recommendations", recommendationService.stats());
+        stats.put("notifications", notificationPipeline.stats());
+        stats.put("notificationInbox", notificationService.stats());
+        stats.put("liveEvents", liveEventRegistry.stats());
+        return stats;
+    }
+}
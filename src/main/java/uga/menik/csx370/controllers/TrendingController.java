@@ -4,8 +4,11 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
+import uga.menik.csx370.models.TrendingHashtag;
 import uga.menik.csx370.services.TrendingService;
+import uga.menik.csx370.services.TrendingWindow;
 
 @Controller
 public class TrendingController {
@@ -17,11 +20,21 @@ public class TrendingController {
         this.trendingService = trendingService;
     }
 
+    /**
+     * /trending?window=hour|day|week&decayed=true. Live counts are served
+     * from memory; decayed scores come from the hourly rollup.
+     */
     @GetMapping("/trending")
-    public ModelAndView showTrendingPage() {
+    public ModelAndView showTrendingPage(@RequestParam(name = "window", required = false) String window,
+            @RequestParam(name = "decayed", defaultValue = "false") boolean decayed) {
         ModelAndView mv = new ModelAndView("trending_page");
-        List<String> hashtags = trendingService.getTrendingHashtags();
+        TrendingWindow trendingWindow = TrendingWindow.fromParam(window);
+        List<TrendingHashtag> hashtags = decayed
+                ? trendingService.getDecayedTrendingHashtags(trendingWindow)
+                : trendingService.getTrendingHashtags(trendingWindow);
         mv.addObject("hashtags", hashtags);
+        mv.addObject("window", trendingWindow.name().toLowerCase());
+        mv.addObject("decayed", decayed || !trendingWindow.isLive());
         return mv;
     }
 }
@@ -45,4 +45,17 @@ public class ExpandedPost extends Post {
     public List<Comment> getComments() {
         return List.copyOf(comments);
     }
+
+    /**
+     * Returns a copy of this post, comments included, with the given viewer flags.
+     *
+     * @param isHearted    whether the post is hearted by the viewer
+     * @param isBookmarked whether the post is bookmarked by the viewer
+     * @return the copy
+     */
+    @Override
+    public ExpandedPost withViewerState(boolean isHearted, boolean isBookmarked) {
+        return new ExpandedPost(getPostId(), getContent(), getPostDate(), getUser(),
+                getHeartsCount(), getCommentsCount(), isHearted, isBookmarked, comments);
+    }
 }
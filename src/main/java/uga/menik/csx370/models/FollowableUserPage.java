@@ -0,0 +1,57 @@
+package uga.menik.csx370.models;
+
+import java.util.List;
+
+/**
+ * Represents one page of the people listing along with the cursor for the next page.
+ */
+public class FollowableUserPage {
+
+    /**
+     * Users on this page, in userId order.
+     */
+    private final List<FollowableUser> users;
+
+    /**
+     * userId to continue after, or null if this is the last page.
+     */
+    private final String nextCursor;
+
+    /**
+     * Constructs a FollowableUserPage with specified details.
+     *
+     * @param users      the users on this page
+     * @param nextCursor the cursor for the next page, null if none
+     */
+    public FollowableUserPage(List<FollowableUser> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the users on this page.
+     *
+     * @return the users
+     */
+    public List<FollowableUser> getUsers() {
+        return users;
+    }
+
+    /**
+     * Returns the cursor of the next page.
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns whether there is a page after this one.
+     *
+     * @return true if there are more users
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
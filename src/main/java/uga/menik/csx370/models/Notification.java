@@ -0,0 +1,78 @@
+package uga.menik.csx370.models;
+
+/**
+ * Represents one notification in a user's inbox.
+ */
+public class Notification {
+
+    /**
+     * Unique identifier for the notification.
+     */
+    private final String notificationId;
+
+    /**
+     * Text shown to the user, e.g. "Ann Lee and 3 others liked your post".
+     */
+    private final String message;
+
+    /**
+     * Creation date of the notification, formatted for display.
+     */
+    private final String notificationDate;
+
+    /**
+     * Whether the user has read the notification.
+     */
+    private final boolean isRead;
+
+    /**
+     * Constructs a Notification with specified details.
+     *
+     * @param notificationId   the unique identifier of the notification
+     * @param message          the text of the notification
+     * @param notificationDate the creation date of the notification
+     * @param isRead           whether the notification has been read
+     */
+    public Notification(String notificationId, String message, String notificationDate, boolean isRead) {
+        this.notificationId = notificationId;
+        this.message = message;
+        this.notificationDate = notificationDate;
+        this.isRead = isRead;
+    }
+
+    /**
+     * Returns the notification ID.
+     *
+     * @return the notification ID
+     */
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    /**
+     * Returns the text of the notification.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the creation date of the notification.
+     *
+     * @return the creation date
+     */
+    public String getNotificationDate() {
+        return notificationDate;
+    }
+
+    /**
+     * Returns whether the notification has been read.
+     *
+     * @return true if read
+     */
+    public boolean isRead() {
+        return isRead;
+    }
+}
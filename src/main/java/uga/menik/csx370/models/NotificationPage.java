@@ -0,0 +1,58 @@
+package uga.menik.csx370.models;
+
+import java.util.List;
+
+/**
+ * Represents one page of a user's notifications along with the cursor for
+ * the next page.
+ */
+public class NotificationPage {
+
+    /**
+     * Notifications on this page, newest first.
+     */
+    private final List<Notification> notifications;
+
+    /**
+     * Encoded cursor of the next page, or null if this is the last page.
+     */
+    private final String nextCursor;
+
+    /**
+     * Constructs a NotificationPage with specified details.
+     *
+     * @param notifications the notifications on this page
+     * @param nextCursor    the encoded cursor for the next page, null if none
+     */
+    public NotificationPage(List<Notification> notifications, String nextCursor) {
+        this.notifications = notifications;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the notifications on this page.
+     *
+     * @return the notifications
+     */
+    public List<Notification> getNotifications() {
+        return notifications;
+    }
+
+    /**
+     * Returns the encoded cursor of the next page.
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns whether there is a page after this one.
+     *
+     * @return true if there are more notifications
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -14,7 +14,7 @@ public class Post extends BasicPost {
     /**
      * The number of hearts (likes) the post has received.
      */
-    private int heartsCount;
+    private final int heartsCount;
     
     /**
      * The number of comments the post has received.
@@ -24,12 +24,12 @@ public class Post extends BasicPost {
     /**
      * Flag indicating whether the post is hearted by the current user.
      */
-    private boolean isHearted;
+    private final boolean isHearted;
     
     /**
      * Flag indicating whether the post is bookmarked by the current user.
      */
-    private boolean isBookmarked;
+    private final boolean isBookmarked;
 
     /**
      * Flag to specify whether to show comments or not.
@@ -92,18 +92,18 @@ public class Post extends BasicPost {
     public boolean isBookmarked() {
         return isBookmarked;
     }
-        /** Updates the number of hearts (likes) on the post. */
-    public void setHeartsCount(int heartsCount) {
-        this.heartsCount = heartsCount;
-    }
-
-    /** Updates whether this post is hearted by the current user. */
-    public void setHearted(boolean isHearted) {
-        this.isHearted = isHearted;
-    }
 
-    public void setBookmarked(boolean isBookmarked) {
-    this.isBookmarked = isBookmarked;
+    /**
+     * Returns a copy of this post with the given viewer flags.
+     * This post itself is left unchanged so it can be shared between viewers.
+     *
+     * @param isHearted    whether the post is hearted by the viewer
+     * @param isBookmarked whether the post is bookmarked by the viewer
+     * @return the copy
+     */
+    public Post withViewerState(boolean isHearted, boolean isBookmarked) {
+        return new Post(getPostId(), getContent(), getPostDate(), getUser(),
+                heartsCount, commentsCount, isHearted, isBookmarked);
     }
 }
 
@@ -0,0 +1,108 @@
+package uga.menik.csx370.models;
+
+import java.sql.Timestamp;
+import java.util.Objects;
+
+/**
+ * Represents a keyset pagination position in a list of posts ordered by
+ * (createdAt DESC, postId DESC). A cursor points at the last post of a page
+ * and the next page starts strictly "before" it.
+ *
+ * Comment pages on the post detail view and notification inbox pages use
+ * the same cursor over their own (createdAt DESC, id DESC) order, with the
+ * commentId or notificationId in the id slot.
+ */
+public class PostCursor {
+
+    /**
+     * Creation time of the last post on the previous page.
+     */
+    private final Timestamp createdAt;
+
+    /**
+     * Id of the last post on the previous page. Breaks ties on createdAt.
+     */
+    private final int postId;
+
+    /**
+     * Constructs a PostCursor with specified details.
+     *
+     * @param createdAt the creation time of the last post seen
+     * @param postId    the id of the last post seen
+     */
+    public PostCursor(Timestamp createdAt, int postId) {
+        this.createdAt = createdAt;
+        this.postId = postId;
+    }
+
+    /**
+     * Parses a cursor token produced by encode.
+     *
+     * @param token the token from the URL, may be null
+     * @return the cursor, or null if the token is missing or malformed
+     */
+    public static PostCursor parse(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        int sep = token.indexOf('_');
+        if (sep <= 0) {
+            return null;
+        }
+        try {
+            long millis = Long.parseLong(token.substring(0, sep));
+            int postId = Integer.parseInt(token.substring(sep + 1));
+            return new PostCursor(new Timestamp(millis), postId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the URL safe token for this cursor.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        return createdAt.getTime() + "_" + postId;
+    }
+
+    /**
+     * Returns the creation time of the last post seen.
+     *
+     * @return the creation time
+     */
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns the id of the last post seen.
+     *
+     * @return the post id
+     */
+    public int getPostId() {
+        return postId;
+    }
+
+    /**
+     * Cursors are equal when they point at the same position, so a parsed
+     * cursor can key a cache however its token was written.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PostCursor)) {
+            return false;
+        }
+        PostCursor cursor = (PostCursor) other;
+        return postId == cursor.postId && createdAt.equals(cursor.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(createdAt, postId);
+    }
+}
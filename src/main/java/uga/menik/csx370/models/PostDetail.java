@@ -0,0 +1,56 @@
+package uga.menik.csx370.models;
+
+/**
+ * Represents the post detail page: the post with one page of its comments,
+ * along with the cursor for the next page of comments.
+ */
+public class PostDetail {
+
+    /**
+     * The post with the comments on this page, newest first.
+     */
+    private final ExpandedPost post;
+
+    /**
+     * Encoded cursor of the next page of comments, or null if there is none.
+     */
+    private final String nextCommentsCursor;
+
+    /**
+     * Constructs a PostDetail with specified details.
+     *
+     * @param post               the post with this page of comments
+     * @param nextCommentsCursor the cursor for the next page of comments, null if none
+     */
+    public PostDetail(ExpandedPost post, String nextCommentsCursor) {
+        this.post = post;
+        this.nextCommentsCursor = nextCommentsCursor;
+    }
+
+    /**
+     * Returns the post with this page of comments.
+     *
+     * @return the post
+     */
+    public ExpandedPost getPost() {
+        return post;
+    }
+
+    /**
+     * Returns the encoded cursor of the next page of comments.
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public String getNextCommentsCursor() {
+        return nextCommentsCursor;
+    }
+
+    /**
+     * Returns whether there are older comments after this page.
+     *
+     * @return true if there are more comments
+     */
+    public boolean hasMoreComments() {
+        return nextCommentsCursor != null;
+    }
+}
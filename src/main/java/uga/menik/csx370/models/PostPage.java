@@ -0,0 +1,57 @@
+package uga.menik.csx370.models;
+
+import java.util.List;
+
+/**
+ * Represents one page of posts along with the cursor for the next page.
+ */
+public class PostPage {
+
+    /**
+     * Posts on this page, newest first.
+     */
+    private final List<Post> posts;
+
+    /**
+     * Encoded cursor of the next page, or null if this is the last page.
+     */
+    private final String nextCursor;
+
+    /**
+     * Constructs a PostPage with specified details.
+     *
+     * @param posts      the posts on this page
+     * @param nextCursor the encoded cursor for the next page, null if none
+     */
+    public PostPage(List<Post> posts, String nextCursor) {
+        this.posts = posts;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the posts on this page.
+     *
+     * @return the posts
+     */
+    public List<Post> getPosts() {
+        return posts;
+    }
+
+    /**
+     * Returns the encoded cursor of the next page.
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns whether there is a page after this one.
+     *
+     * @return true if there are more posts
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
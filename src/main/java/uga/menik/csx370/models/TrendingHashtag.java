@@ -0,0 +1,47 @@
+package uga.menik.csx370.models;
+
+/**
+ * Represents a hashtag on the trending page along with how often it was used.
+ */
+public class TrendingHashtag {
+
+    /**
+     * Lowercase tag text without the '#'.
+     */
+    private final String tag;
+
+    /**
+     * Estimated number of uses in the trending window, or the rounded
+     * decay-weighted number of uses for decayed trending.
+     */
+    private final long count;
+
+    /**
+     * Constructs a TrendingHashtag with specified details.
+     *
+     * @param tag   the tag text without the '#'
+     * @param count the estimated number of uses
+     */
+    public TrendingHashtag(String tag, long count) {
+        this.tag = tag;
+        this.count = count;
+    }
+
+    /**
+     * Returns the tag text without the '#'.
+     *
+     * @return the tag
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Returns the estimated number of uses in the window.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+}
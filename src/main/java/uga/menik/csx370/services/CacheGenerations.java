@@ -0,0 +1,45 @@
+package uga.menik.csx370.services;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Generation numbers for the generation-keyed page caches (FeedCache,
+ * PostDetailCache, HashtagSearchCache). Bumping an id's generation makes
+ * every page keyed on an older one unreachable.
+ *
+ * Generations come from one counter, so an id never gets back a number it
+ * had before. That lets them live in a bounded cache that forgets an id
+ * once its last bump is older than the pages' TTL: the id reads as 0
+ * again, and every page stored under 0 before that bump has expired by
+ * then. Should an id be evicted early for size, a page from before its
+ * bump can be served again, but no longer than the page TTL.
+ */
+final class CacheGenerations {
+
+    private final Cache<Integer, Long> generations;
+    private final AtomicLong counter = new AtomicLong();
+
+    CacheGenerations(long maxIds, Duration pageTtl) {
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maxIds)
+                .expireAfterWrite(pageTtl)
+                .build();
+    }
+
+    long current(int id) {
+        Long generation = generations.getIfPresent(id);
+        return generation == null ? 0 : generation;
+    }
+
+    void bump(int id) {
+        generations.put(id, counter.incrementAndGet());
+    }
+
+    long size() {
+        return generations.estimatedSize();
+    }
+}
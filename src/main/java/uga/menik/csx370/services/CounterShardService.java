@@ -0,0 +1,202 @@
+package uga.menik.csx370.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Sharded counter storage for hot posts.
+ *
+ * Normally a post's hearts and comments are counted on its post row. When
+ * one post's counter rows are written faster than
+ * counters.shard-threshold-per-second, its counter writes go to one of
+ * several post_counter_shard rows picked
+ * at random instead, so concurrent writers lock different rows. Readers
+ * always add the shard rows to the post row (see COUNTER_COLUMNS). Once a
+ * post has been quiet for counters.shard-cool-down-ms its shards are
+ * folded back into the post row and deleted.
+ */
+@Service
+public class CounterShardService {
+
+    /**
+     * Select list for the true counters of post p. Most posts have no
+     * shard rows, so each subquery is one empty primary key lookup.
+     */
+    public static final String COUNTER_COLUMNS =
+            "p.heartsCount + COALESCE((SELECT SUM(s.hearts) FROM post_counter_shard s WHERE s.postId = p.postId), 0) AS heartsCount, " +
+            "p.commentsCount + COALESCE((SELECT SUM(s.comments) FROM post_counter_shard s WHERE s.postId = p.postId), 0) AS commentsCount ";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final int shards;
+    private final long thresholdPerSecond;
+    private final long coolDownMillis;
+
+    // Counter row writes per post since the last rate check. A heart flush
+    // is one write per post however many hearts it carries.
+    private final Map<Integer, LongAdder> recentWrites = new ConcurrentHashMap<>();
+    // Sharded posts and the time after which they may be folded back.
+    private final Map<Integer, Long> hotUntil = new ConcurrentHashMap<>();
+    private long lastRateCheck = System.currentTimeMillis();
+
+    @Autowired
+    public CounterShardService(JdbcTemplate jdbc, TransactionTemplate transactionTemplate,
+            @Value("${counters.shards:16}") int shards,
+            @Value("${counters.shard-threshold-per-second:20}") long thresholdPerSecond,
+            @Value("${counters.shard-cool-down-ms:300000}") long coolDownMillis) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.shards = shards;
+        this.thresholdPerSecond = thresholdPerSecond;
+        this.coolDownMillis = coolDownMillis;
+    }
+
+    /**
+     * Folds shards left behind by a previous process, which no longer
+     * knows those posts were hot.
+     */
+    @PostConstruct
+    public void foldLeftovers() {
+        List<Integer> postIds = jdbc.queryForList("SELECT DISTINCT postId FROM post_counter_shard", Integer.class);
+        for (int postId : postIds) {
+            fold(postId);
+        }
+        if (!postIds.isEmpty()) {
+            System.out.println("Folded counter shards of " + postIds.size() + " posts");
+        }
+    }
+
+    // Counts one counter row write against the post's write rate.
+    void recordWrite(int postId) {
+        recentWrites.computeIfAbsent(postId, k -> new LongAdder()).increment();
+    }
+
+    public boolean isSharded(int postId) {
+        return hotUntil.containsKey(postId);
+    }
+
+    /**
+     * Adds heart deltas, keyed and ordered by postId, to each post's row
+     * or to one of its shards, all in one transaction.
+     */
+    public void addHearts(SortedMap<Integer, Long> deltas) {
+        transactionTemplate.executeWithoutResult(status -> addHeartsInTransaction(deltas));
+    }
+
+    private void addHeartsInTransaction(SortedMap<Integer, Long> deltas) {
+        List<Object[]> postRows = new ArrayList<>();
+        List<Object[]> shardRows = new ArrayList<>();
+        deltas.forEach((postId, delta) -> {
+            recordWrite(postId);
+            if (isSharded(postId)) {
+                shardRows.add(new Object[] { postId, randomShard(), delta });
+            } else {
+                postRows.add(new Object[] { delta, postId });
+            }
+        });
+        if (!postRows.isEmpty()) {
+            jdbc.batchUpdate("UPDATE post SET heartsCount = GREATEST(heartsCount + ?, 0) WHERE postId = ?", postRows);
+        }
+        if (!shardRows.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO post_counter_shard (postId, shard, hearts, comments) VALUES (?, ?, ?, 0) " +
+                             "ON DUPLICATE KEY UPDATE hearts = hearts + VALUES(hearts)", shardRows);
+        }
+    }
+
+    /**
+     * Adds one comment to the post's row or to one of its shards.
+     */
+    public void addComment(int postId) {
+        recordWrite(postId);
+        if (isSharded(postId)) {
+            jdbc.update("INSERT INTO post_counter_shard (postId, shard, hearts, comments) VALUES (?, ?, 0, 1) " +
+                        "ON DUPLICATE KEY UPDATE comments = comments + 1", postId, randomShard());
+        } else {
+            jdbc.update("UPDATE post SET commentsCount = commentsCount + 1 WHERE postId = ?", postId);
+        }
+    }
+
+    /**
+     * Shards posts that crossed the rate threshold since the last check
+     * and folds back the ones that have cooled down.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void checkRates() {
+        long now = System.currentTimeMillis();
+        long elapsed = Math.max(now - lastRateCheck, 1);
+        lastRateCheck = now;
+
+        for (Map.Entry<Integer, LongAdder> entry : recentWrites.entrySet()) {
+            long writes = entry.getValue().sumThenReset();
+            if (writes * 1000 / elapsed >= thresholdPerSecond) {
+                if (hotUntil.put(entry.getKey(), now + coolDownMillis) == null) {
+                    System.out.println("Sharding counters of post " + entry.getKey());
+                }
+            } else if (writes == 0) {
+                recentWrites.remove(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (Map.Entry<Integer, Long> entry : hotUntil.entrySet()) {
+            if (entry.getValue() < now) {
+                hotUntil.remove(entry.getKey());
+                try {
+                    fold(entry.getKey());
+                } catch (Exception e) {
+                    // The shards stay readable; the next startup folds them.
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the post's shard totals onto its post row and deletes the
+     * shards. The shard rows are locked first, so writes racing with the
+     * fold wait and then start new shard rows.
+     */
+    public void fold(int postId) {
+        transactionTemplate.executeWithoutResult(status -> foldInTransaction(postId));
+    }
+
+    private void foldInTransaction(int postId) {
+        jdbc.queryForList("SELECT shard FROM post_counter_shard WHERE postId = ? FOR UPDATE", Integer.class, postId);
+        jdbc.update("""
+            UPDATE post p
+            JOIN (SELECT postId, SUM(hearts) AS hearts, SUM(comments) AS comments
+                  FROM post_counter_shard WHERE postId = ? GROUP BY postId) s ON s.postId = p.postId
+            SET p.heartsCount = GREATEST(p.heartsCount + s.hearts, 0),
+                p.commentsCount = GREATEST(p.commentsCount + s.comments, 0)
+            """, postId);
+        jdbc.update("DELETE FROM post_counter_shard WHERE postId = ?", postId);
+    }
+
+    /**
+     * Sharding counters for the stats page.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("shardedPosts", hotUntil.size());
+        result.put("trackedPosts", recentWrites.size());
+        return result;
+    }
+
+    private int randomShard() {
+        return ThreadLocalRandom.current().nextInt(shards);
+    }
+}
@@ -0,0 +1,87 @@
+package uga.menik.csx370.services;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import uga.menik.csx370.models.PostCursor;
+import uga.menik.csx370.models.PostPage;
+
+/**
+ * Bounded in-process cache of home feed pages keyed by user and cursor.
+ * Caffeine evicts with W-TinyLFU, weighs entries by the number of posts
+ * they hold and expires them after a short TTL.
+ *
+ * Invalidation is per user: every key carries the user's generation
+ * number, and invalidateUser bumps it. Older pages of that user can no
+ * longer be looked up and age out on their own. Generations are kept in a
+ * bounded CacheGenerations, so users invalidated long ago cost nothing.
+ */
+@Service
+public class FeedCache {
+
+    /**
+     * Cache key. The cursor is null for the first page, so a missing and a
+     * malformed "before" share the first page's entry.
+     */
+    private record Key(int userId, long generation, PostCursor cursor, int pageSize) {
+    }
+
+    private final Cache<Key, PostPage> pages;
+    private final CacheGenerations generations;
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public FeedCache(@Value("${feed-cache.max-posts:200000}") long maxPosts,
+            @Value("${feed-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(maxPosts)
+                .weigher((Key key, PostPage page) -> page.getPosts().size() + 1)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.generations = new CacheGenerations(maxPosts, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * Returns the cached page, loading it with loader on a miss.
+     */
+    public PostPage get(int userId, PostCursor cursor, int pageSize, Supplier<PostPage> loader) {
+        Key key = new Key(userId, generations.current(userId), cursor, pageSize);
+        return pages.get(key, k -> loader.get());
+    }
+
+    /**
+     * Drops every cached page of the given user.
+     */
+    public void invalidateUser(int userId) {
+        generations.bump(userId);
+        invalidations.increment();
+    }
+
+    /**
+     * Hit, miss and eviction counters for the stats page.
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = pages.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("invalidations", invalidations.sum());
+        result.put("entries", pages.estimatedSize());
+        result.put("generations", generations.size());
+        return result;
+    }
+}
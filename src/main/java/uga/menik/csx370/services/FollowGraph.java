@@ -0,0 +1,297 @@
+package uga.menik.csx370.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory copy of the follows table, indexed in both directions.
+ *
+ * Each user has a sorted int[] of the users they follow and another of
+ * their followers, indexed by userId. Membership is a binary search, counts
+ * are an array read, and a follow or unfollow shifts one slice of two
+ * arrays. No Integer boxing anywhere. A packed CSR layout would be a little
+ * smaller but would need a full rebuild for every change.
+ *
+ * PeopleService applies its own changes as they happen. Changes made by
+ * other instances arrive with the periodic rebuild.
+ */
+@Service
+public class FollowGraph {
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Adjacency following = new Adjacency();
+    private Adjacency followers = new Adjacency();
+
+    // Changes applied while a rebuild is reading follows, replayed onto
+    // the rebuilt graph. Null when no rebuild is running.
+    private List<int[]> changesDuringRebuild;
+
+    @Autowired
+    public FollowGraph(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Loads follows at startup and reloads it on a schedule.
+     */
+    @PostConstruct
+    @Scheduled(initialDelayString = "${follow-graph.rebuild-interval-ms:600000}",
+               fixedDelayString = "${follow-graph.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Adjacency newFollowing = new Adjacency();
+        Adjacency newFollowers = new Adjacency();
+        long[] edges = { 0 };
+        try {
+            jdbc.query("SELECT followerId, followingId FROM follows", rs -> {
+                int followerId = rs.getInt("followerId");
+                int followingId = rs.getInt("followingId");
+                newFollowing.append(followerId, followingId);
+                newFollowers.append(followingId, followerId);
+                edges[0]++;
+            });
+            newFollowing.sortAll();
+            newFollowers.sortAll();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int[] change : changesDuringRebuild) {
+                apply(newFollowing, newFollowers, change[0], change[1], change[2] == 1);
+            }
+            changesDuringRebuild = null;
+            following = newFollowing;
+            followers = newFollowers;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Follow graph loaded with " + edges[0] + " edges");
+    }
+
+    /**
+     * Records that followerId now follows followingId.
+     */
+    public void addEdge(int followerId, int followingId) {
+        change(followerId, followingId, true);
+    }
+
+    /**
+     * Records that followerId no longer follows followingId.
+     */
+    public void removeEdge(int followerId, int followingId) {
+        change(followerId, followingId, false);
+    }
+
+    public boolean isFollowing(int followerId, int followingId) {
+        lock.readLock().lock();
+        try {
+            return following.contains(followerId, followingId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int followerCount(int userId) {
+        lock.readLock().lock();
+        try {
+            return followers.size(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int followingCount(int userId) {
+        lock.readLock().lock();
+        try {
+            return following.size(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a sorted copy of the ids of userId's followers.
+     */
+    public int[] followersOf(int userId) {
+        lock.readLock().lock();
+        try {
+            return followers.copy(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a sorted copy of the ids userId follows.
+     */
+    public int[] followingOf(int userId) {
+        lock.readLock().lock();
+        try {
+            return following.copy(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Graph size for the stats page.
+     */
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("edges", following.edges);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void change(int followerId, int followingId, boolean add) {
+        lock.writeLock().lock();
+        try {
+            apply(following, followers, followerId, followingId, add);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(new int[] { followerId, followingId, add ? 1 : 0 });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Adjacency following, Adjacency followers, int followerId, int followingId,
+            boolean add) {
+        if (add) {
+            following.insert(followerId, followingId);
+            followers.insert(followingId, followerId);
+        } else {
+            following.remove(followerId, followingId);
+            followers.remove(followingId, followerId);
+        }
+    }
+
+    /**
+     * One direction of the graph: for every vertex, a sorted array of
+     * neighbours in lists[v][0 .. sizes[v]). Arrays have spare room at
+     * the end and grow by doubling. Not thread safe.
+     */
+    private static final class Adjacency {
+
+        private static final int[] EMPTY = new int[0];
+
+        private int[][] lists = new int[1024][];
+        private int[] sizes = new int[1024];
+        private long edges;
+
+        boolean contains(int vertex, int neighbour) {
+            if (vertex < 0 || vertex >= lists.length || lists[vertex] == null) {
+                return false;
+            }
+            return Arrays.binarySearch(lists[vertex], 0, sizes[vertex], neighbour) >= 0;
+        }
+
+        int size(int vertex) {
+            return vertex >= 0 && vertex < sizes.length ? sizes[vertex] : 0;
+        }
+
+        int[] copy(int vertex) {
+            if (vertex < 0 || vertex >= lists.length || lists[vertex] == null) {
+                return EMPTY;
+            }
+            return Arrays.copyOf(lists[vertex], sizes[vertex]);
+        }
+
+        // Bulk load: adds without keeping order; sortAll fixes it up.
+        void append(int vertex, int neighbour) {
+            ensureRoom(vertex);
+            lists[vertex][sizes[vertex]++] = neighbour;
+            edges++;
+        }
+
+        void sortAll() {
+            for (int v = 0; v < lists.length; v++) {
+                if (lists[v] != null) {
+                    Arrays.sort(lists[v], 0, sizes[v]);
+                }
+            }
+        }
+
+        void insert(int vertex, int neighbour) {
+            ensureVertex(vertex);
+            int[] list = lists[vertex];
+            int size = sizes[vertex];
+            int at = list == null ? -1 : Arrays.binarySearch(list, 0, size, neighbour);
+            if (at >= 0) {
+                return;
+            }
+            ensureRoom(vertex);
+            list = lists[vertex];
+            int insertAt = -at - 1;
+            System.arraycopy(list, insertAt, list, insertAt + 1, size - insertAt);
+            list[insertAt] = neighbour;
+            sizes[vertex]++;
+            edges++;
+        }
+
+        void remove(int vertex, int neighbour) {
+            if (vertex < 0 || vertex >= lists.length || lists[vertex] == null) {
+                return;
+            }
+            int[] list = lists[vertex];
+            int size = sizes[vertex];
+            int at = Arrays.binarySearch(list, 0, size, neighbour);
+            if (at < 0) {
+                return;
+            }
+            System.arraycopy(list, at + 1, list, at, size - at - 1);
+            sizes[vertex]--;
+            edges--;
+        }
+
+        private void ensureVertex(int vertex) {
+            if (vertex >= lists.length) {
+                int capacity = Math.max(lists.length * 2, vertex + 1);
+                lists = Arrays.copyOf(lists, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+        }
+
+        private void ensureRoom(int vertex) {
+            ensureVertex(vertex);
+            int[] list = lists[vertex];
+            if (list == null) {
+                lists[vertex] = new int[4];
+            } else if (sizes[vertex] == list.length) {
+                lists[vertex] = Arrays.copyOf(list, list.length * 2);
+            }
+        }
+    }
+}
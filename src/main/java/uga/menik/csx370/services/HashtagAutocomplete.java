@@ -0,0 +1,245 @@
+package uga.menik.csx370.services;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import uga.menik.csx370.models.TrendingHashtag;
+
+/**
+ * Hashtag prefix suggestions served from memory.
+ *
+ * Every tag is held in one sorted String[] with a parallel int[] of
+ * weights, its uses over the last TrendingWindow.WEEK of hashtag_rollup.
+ * Sorted order makes the array an implicit trie: the tags under a prefix
+ * are one contiguous range found by binary search. Ranges of up to
+ * SCAN_LIMIT tags are scanned for the best few; prefixes with more tags
+ * than that have their best MAX_SUGGESTIONS precomputed. There are at most
+ * a few thousand such prefixes even for a million tags.
+ *
+ * The arrays are rebuilt on a schedule. Tags created in between are kept
+ * in a small sorted map that every lookup merges in.
+ */
+@Service
+public class HashtagAutocomplete {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    // Largest range a lookup scans instead of using a precomputed list.
+    private static final int SCAN_LIMIT = 1024;
+
+    private final JdbcTemplate jdbc;
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new int[0]);
+    // Tags created since the last rebuild, with weight 1.
+    private final ConcurrentSkipListMap<String, Integer> added = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public HashtagAutocomplete(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Loads every tag with its weekly uses. Runs at startup and then on a
+     * schedule so weights follow what is trending.
+     */
+    @PostConstruct
+    @Scheduled(initialDelayString = "${hashtags.autocomplete-rebuild-ms:600000}",
+               fixedDelayString = "${hashtags.autocomplete-rebuild-ms:600000}")
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        Timestamp since = new Timestamp(started - TrendingWindow.WEEK.getMillis());
+        final String sql = "SELECT h.tagText, COALESCE(r.uses, 0) AS uses FROM hashtag h " +
+                           "LEFT JOIN (SELECT tagId, SUM(count) AS uses FROM hashtag_rollup " +
+                           "           WHERE hourBucket >= ? GROUP BY tagId) r ON r.tagId = h.tagId";
+        Map<String, Integer> weights = new HashMap<>();
+        jdbc.query(sql, rs -> {
+            weights.put(rs.getString("tagText"), rs.getInt("uses"));
+        }, since);
+
+        // Sorted in Java: the column collation does not order like String.compareTo.
+        String[] tags = weights.keySet().toArray(new String[0]);
+        Arrays.sort(tags);
+        int[] tagWeights = new int[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            tagWeights[i] = weights.get(tags[i]);
+        }
+        Snapshot built = new Snapshot(tags, tagWeights);
+        snapshot = built;
+        added.keySet().removeIf(built::contains);
+        System.out.println("Hashtag autocomplete built with " + tags.length + " tags in "
+                + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    /**
+     * Makes a newly created tag suggestible before the next rebuild.
+     */
+    public void add(String tag) {
+        if (!snapshot.contains(tag)) {
+            added.putIfAbsent(tag, 1);
+        }
+    }
+
+    /**
+     * Returns up to MAX_SUGGESTIONS tags starting with prefix, most used
+     * first. A leading '#' is ignored.
+     */
+    public List<TrendingHashtag> suggest(String prefix) {
+        String p = prefix == null ? "" : prefix.trim().toLowerCase();
+        if (p.startsWith("#")) {
+            p = p.substring(1);
+        }
+        if (p.isEmpty()) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        TopTags top = current.top(p);
+        for (Map.Entry<String, Integer> entry : added.subMap(p, p + Character.MAX_VALUE).entrySet()) {
+            top.offer(entry.getKey(), entry.getValue());
+        }
+        return top.toList();
+    }
+
+    /**
+     * Number of suggestible tags, for the stats page.
+     */
+    public int size() {
+        return snapshot.tags.length + added.size();
+    }
+
+    /**
+     * Immutable sorted tags with their weights and the precomputed best
+     * tags of every prefix covering more than SCAN_LIMIT tags.
+     */
+    private static final class Snapshot {
+
+        private final String[] tags;
+        private final int[] weights;
+        private final Map<String, int[]> hotPrefixes = new HashMap<>();
+
+        Snapshot(String[] tags, int[] weights) {
+            this.tags = tags;
+            this.weights = weights;
+            precompute(0, tags.length, 0);
+        }
+
+        boolean contains(String tag) {
+            return Arrays.binarySearch(tags, tag) >= 0;
+        }
+
+        TopTags top(String prefix) {
+            TopTags top = new TopTags(MAX_SUGGESTIONS);
+            int[] best = hotPrefixes.get(prefix);
+            if (best != null) {
+                for (int i : best) {
+                    top.offer(tags[i], weights[i]);
+                }
+                return top;
+            }
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            for (int i = from; i < to; i++) {
+                top.offer(tags[i], weights[i]);
+            }
+            return top;
+        }
+
+        // Precomputes [from, to), the tags sharing their first depth chars,
+        // then splits it by the next char and recurses into big groups.
+        private void precompute(int from, int to, int depth) {
+            if (to - from <= SCAN_LIMIT) {
+                return;
+            }
+            if (depth > 0) {
+                hotPrefixes.put(tags[from].substring(0, depth), best(from, to));
+            }
+            int i = from;
+            // The tag equal to the prefix itself sorts first and has no next char.
+            while (i < to && tags[i].length() == depth) {
+                i++;
+            }
+            while (i < to) {
+                char c = tags[i].charAt(depth);
+                int j = i + 1;
+                while (j < to && tags[j].charAt(depth) == c) {
+                    j++;
+                }
+                precompute(i, j, depth + 1);
+                i = j;
+            }
+        }
+
+        private int[] best(int from, int to) {
+            int[] ids = new int[MAX_SUGGESTIONS];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                if (size < ids.length) {
+                    ids[size++] = i;
+                    continue;
+                }
+                int weakest = 0;
+                for (int k = 1; k < size; k++) {
+                    if (weights[ids[k]] < weights[ids[weakest]]) {
+                        weakest = k;
+                    }
+                }
+                if (weights[i] > weights[ids[weakest]]) {
+                    ids[weakest] = i;
+                }
+            }
+            return Arrays.copyOf(ids, size);
+        }
+
+        private int lowerBound(String key) {
+            int at = Arrays.binarySearch(tags, key);
+            return at >= 0 ? at : -at - 1;
+        }
+    }
+
+    /**
+     * The best few tags offered, kept sorted by weight, then tag.
+     */
+    private static final class TopTags {
+
+        private final List<TrendingHashtag> best = new ArrayList<>();
+        private final int limit;
+
+        TopTags(int limit) {
+            this.limit = limit;
+        }
+
+        void offer(String tag, int weight) {
+            for (TrendingHashtag kept : best) {
+                if (kept.getTag().equals(tag)) {
+                    return;
+                }
+            }
+            int at = 0;
+            while (at < best.size() && (best.get(at).getCount() > weight
+                    || best.get(at).getCount() == weight && best.get(at).getTag().compareTo(tag) < 0)) {
+                at++;
+            }
+            if (at < limit) {
+                best.add(at, new TrendingHashtag(tag, weight));
+                if (best.size() > limit) {
+                    best.remove(limit);
+                }
+            }
+        }
+
+        List<TrendingHashtag> toList() {
+            return best;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package uga.menik.csx370.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory tagText to tagId dictionary for the hashtag table.
+ * The hashtag vocabulary is small and a tag's id never changes once the
+ * tag exists, so after warm-up most posts and searches resolve their tags
+ * without touching MySQL.
+ *
+ * The map is bounded by maxEntries. Once full, new tags are still resolved
+ * correctly through the database, they just are not cached.
+ */
+@Service
+public class HashtagDictionary {
+
+    private final JdbcTemplate jdbc;
+    private final HashtagAutocomplete autocomplete;
+    private final int maxEntries;
+    private final Map<String, Integer> tagIds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HashtagDictionary(JdbcTemplate jdbc, HashtagAutocomplete autocomplete,
+            @Value("${hashtags.dictionary-max-entries:100000}") int maxEntries) {
+        this.jdbc = jdbc;
+        this.autocomplete = autocomplete;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Loads the newest maxEntries tags at startup.
+     */
+    @PostConstruct
+    public void warm() {
+        jdbc.query("SELECT tagId, tagText FROM hashtag ORDER BY tagId DESC LIMIT ?", rs -> {
+            remember(rs.getString("tagText"), rs.getInt("tagId"));
+        }, maxEntries);
+        System.out.println("Hashtag dictionary warmed with " + tagIds.size() + " tags");
+    }
+
+    /**
+     * Returns the ids of the given lowercase tags, creating missing tags.
+     * Safe when several posts introduce the same new tag at once: the
+     * upsert is idempotent on hashtag.tagText and every caller reads the
+     * single id MySQL kept.
+     */
+    public Map<String, Integer> getOrCreate(Collection<String> tags) {
+        Map<String, Integer> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String tag : tags) {
+            Integer tagId = tagIds.get(tag);
+            if (tagId != null) {
+                result.put(tag, tagId);
+            } else {
+                missing.add(tag);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<String, Integer> created = upsert(missing);
+            result.putAll(created);
+            // A new tag row only exists for others once the caller's transaction commits.
+            afterCommit(() -> created.forEach((tag, tagId) -> {
+                remember(tag, tagId);
+                autocomplete.add(tag);
+            }));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids of the given lowercase tags without creating any.
+     * Tags that do not exist are left out of the result.
+     */
+    public Map<String, Integer> resolve(Collection<String> tags) {
+        Map<String, Integer> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String tag : tags) {
+            Integer tagId = tagIds.get(tag);
+            if (tagId != null) {
+                result.put(tag, tagId);
+            } else {
+                missing.add(tag);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<String, Integer> found = select(missing);
+            found.forEach(this::remember);
+            result.putAll(found);
+        }
+        return result;
+    }
+
+    /**
+     * Number of cached tags, for the stats page.
+     */
+    public int size() {
+        return tagIds.size();
+    }
+
+    // One multi-row upsert plus one lookup for all tags. Tags are sorted so
+    // concurrent posts lock the same hashtag rows in the same order.
+    private Map<String, Integer> upsert(List<String> tags) {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(tags));
+        String values = String.join(",", Collections.nCopies(sorted.size(), "(?)"));
+        jdbc.update("INSERT INTO hashtag (tagText) VALUES " + values +
+                    " ON DUPLICATE KEY UPDATE tagText = tagText", sorted.toArray());
+        return select(sorted);
+    }
+
+    private Map<String, Integer> select(List<String> tags) {
+        String placeholders = String.join(",", Collections.nCopies(tags.size(), "?"));
+        Map<String, Integer> found = new HashMap<>();
+        jdbc.query("SELECT tagId, tagText FROM hashtag WHERE tagText IN (" + placeholders + ")", rs -> {
+            found.put(rs.getString("tagText"), rs.getInt("tagId"));
+        }, tags.toArray());
+        return found;
+    }
+
+    private void remember(String tag, int tagId) {
+        if (tagIds.size() < maxEntries) {
+            tagIds.putIfAbsent(tag, tagId);
+        }
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,168 @@
+package uga.menik.csx370.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-process inverted index from tagId to the compressed bitmap of postIds
+ * carrying that tag. Loaded from post_hashtag at startup, updated by
+ * createPost, and caught up on a schedule with rows written by other nodes.
+ *
+ * Searches combine bitmaps with AND / OR / AND NOT and walk the result from
+ * the highest postId down, which is newest first since postIds increase.
+ * Only the final page of ids goes to MySQL to be hydrated.
+ */
+@Service
+public class HashtagIndex {
+
+    private final JdbcTemplate jdbc;
+    private final Map<Integer, RoaringBitmap> postsByTag = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Posts younger than this are read again on the next catch-up, so a
+    // post whose transaction commits a little after a newer postId is not
+    // skipped. Same window as HashtagRollupService.
+    private static final int SETTLE_SECONDS = 60;
+
+    // Every post_hashtag row up to this postId has been read. Local adds
+    // do not move it, so the catch-up query never skips rows another node
+    // wrote.
+    private volatile int loadedUpToPostId = 0;
+
+    @Autowired
+    public HashtagIndex(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Loads the whole post_hashtag table.
+     */
+    @PostConstruct
+    public void load() {
+        catchUp();
+        System.out.println("Hashtag index loaded with " + postsByTag.size() + " tags");
+    }
+
+    /**
+     * Reads post_hashtag rows newer than the last load. Rows of posts
+     * younger than SETTLE_SECONDS are read now and again next time; the
+     * bitmaps ignore the repeats.
+     */
+    @Scheduled(fixedDelayString = "${hashtags.index-catch-up-ms:30000}")
+    public void catchUp() {
+        int from = loadedUpToPostId;
+        // Taken before the rows are read, so every settled post is among them.
+        Integer settled = jdbc.queryForObject("""
+            SELECT COALESCE(MAX(postId), ?) FROM post
+            WHERE postId > ? AND createdAt < NOW() - INTERVAL ? SECOND
+            """, Integer.class, from, from, SETTLE_SECONDS);
+        List<int[]> rows = new ArrayList<>();
+        jdbc.query("SELECT tagId, postId FROM post_hashtag WHERE postId > ?", rs -> {
+            rows.add(new int[] { rs.getInt("tagId"), rs.getInt("postId") });
+        }, from);
+
+        lock.writeLock().lock();
+        try {
+            for (int[] row : rows) {
+                postsByTag.computeIfAbsent(row[0], k -> new RoaringBitmap()).add(row[1]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loadedUpToPostId = settled;
+    }
+
+    /**
+     * Adds a newly created post under its tags.
+     */
+    public void addPost(int postId, Collection<Integer> tagIds) {
+        lock.writeLock().lock();
+        try {
+            for (int tagId : tagIds) {
+                postsByTag.computeIfAbsent(tagId, k -> new RoaringBitmap()).add(postId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to limit postIds, highest first, below beforePostId
+     * (0 for the first page), that have every required tag, at least one
+     * optional tag if any are given, and no excluded tag.
+     */
+    public int[] search(Collection<Integer> required, Collection<Integer> optional,
+            Collection<Integer> excluded, int beforePostId, int limit) {
+        if (required.isEmpty() && optional.isEmpty()) {
+            return new int[0];
+        }
+
+        RoaringBitmap matches;
+        lock.readLock().lock();
+        try {
+            matches = null;
+            for (int tagId : required) {
+                matches = matches == null ? copyOf(tagId) : RoaringBitmap.and(matches, bitmap(tagId));
+            }
+            if (!optional.isEmpty()) {
+                RoaringBitmap any = new RoaringBitmap();
+                for (int tagId : optional) {
+                    any.or(bitmap(tagId));
+                }
+                matches = matches == null ? any : RoaringBitmap.and(matches, any);
+            }
+            for (int tagId : excluded) {
+                matches.andNot(bitmap(tagId));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (beforePostId > 0) {
+            matches.remove((long) beforePostId, 0x100000000L);
+        }
+
+        int[] page = new int[Math.min(limit, matches.getCardinality())];
+        IntIterator newestFirst = matches.getReverseIntIterator();
+        for (int i = 0; i < page.length; i++) {
+            page[i] = newestFirst.next();
+        }
+        return page;
+    }
+
+    /**
+     * Number of indexed tags, for the stats page.
+     */
+    public int tagCount() {
+        lock.readLock().lock();
+        try {
+            return postsByTag.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Callers must hold the read lock.
+    private RoaringBitmap bitmap(int tagId) {
+        RoaringBitmap posts = postsByTag.get(tagId);
+        return posts == null ? new RoaringBitmap() : posts;
+    }
+
+    private RoaringBitmap copyOf(int tagId) {
+        return bitmap(tagId).clone();
+    }
+}
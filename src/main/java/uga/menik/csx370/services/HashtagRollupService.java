@@ -0,0 +1,122 @@
+package uga.menik.csx370.services;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import uga.menik.csx370.models.TrendingHashtag;
+
+/**
+ * Durable trending backed by the hashtag_rollup table, which holds one
+ * row per (tag, hour) with the number of posts that used the tag in that
+ * hour. A scheduled job folds new post_hashtag rows into it, so scores
+ * survive restarts and include posts made on every instance.
+ *
+ * Scores decay exponentially with age, so a tag used 100 times an hour
+ * ago outranks one used 100 times six days ago. Reading a window touches
+ * only its rollup rows, never post or post_hashtag.
+ */
+@Service
+public class HashtagRollupService {
+
+    // Posts younger than this are left for the next run, so a post whose
+    // transaction commits a little after a newer postId is not skipped.
+    private static final int SETTLE_SECONDS = 60;
+
+    /**
+     * Scores cache key. Different callers ask for different list lengths.
+     */
+    private record Key(TrendingWindow window, int limit) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final int batchPosts;
+    private final Cache<Key, List<TrendingHashtag>> scores;
+
+    @Autowired
+    public HashtagRollupService(JdbcTemplate jdbc,
+            @Value("${trending.rollup-batch-posts:10000}") int batchPosts,
+            @Value("${trending.rollup-interval-ms:60000}") long intervalMillis) {
+        this.jdbc = jdbc;
+        this.batchPosts = batchPosts;
+        // Scores only change when the rollup runs.
+        this.scores = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(intervalMillis))
+                .build();
+    }
+
+    /**
+     * Folds up to batchPosts settled posts newer than the stored watermark
+     * into hashtag_rollup. The batch is counted in posts rather than
+     * postIds, so a gap of deleted or skipped ids cannot stall the
+     * watermark. The watermark row is locked for the whole run, so
+     * instances take turns and no post is counted twice.
+     */
+    @Scheduled(fixedDelayString = "${trending.rollup-interval-ms:60000}")
+    @Transactional
+    public void rollUp() {
+        Integer from = jdbc.queryForObject(
+                "SELECT lastPostId FROM hashtag_rollup_state WHERE id = 1 FOR UPDATE", Integer.class);
+        Integer to = jdbc.queryForObject("""
+            SELECT COALESCE(MAX(postId), ?) FROM (
+                SELECT postId FROM post
+                WHERE postId > ? AND createdAt < NOW() - INTERVAL ? SECOND
+                ORDER BY postId
+                LIMIT ?
+            ) batch
+            """, Integer.class, from, from, SETTLE_SECONDS, batchPosts);
+        if (to <= from) {
+            return;
+        }
+
+        jdbc.update("""
+            INSERT INTO hashtag_rollup (tagId, hourBucket, count)
+            SELECT * FROM (
+                SELECT ph.tagId, DATE_FORMAT(p.createdAt, '%Y-%m-%d %H:00:00') AS hourBucket, COUNT(*) AS n
+                FROM post p
+                JOIN post_hashtag ph ON ph.postId = p.postId
+                WHERE p.postId > ? AND p.postId <= ?
+                GROUP BY ph.tagId, hourBucket
+            ) batch
+            ON DUPLICATE KEY UPDATE count = hashtag_rollup.count + batch.n
+            """, from, to);
+        jdbc.update("UPDATE hashtag_rollup_state SET lastPostId = ? WHERE id = 1", to);
+    }
+
+    /**
+     * Returns the limit tags with the highest decayed score in the window.
+     * A use counts exp(-ln2 * age / halfLife), where age is measured from
+     * the middle of its hour.
+     */
+    public List<TrendingHashtag> getDecayedTrendingHashtags(TrendingWindow window, int limit) {
+        return scores.get(new Key(window, limit), k -> load(k.window(), k.limit()));
+    }
+
+    private List<TrendingHashtag> load(TrendingWindow window, int limit) {
+        double lambda = Math.log(2) / window.getHalfLifeHours();
+        Timestamp since = new Timestamp(System.currentTimeMillis() - window.getMillis());
+        final String sql = """
+            SELECT h.tagText,
+                   SUM(r.count * EXP(-? * (TIMESTAMPDIFF(SECOND, r.hourBucket, NOW()) - 1800) / 3600)) AS score
+            FROM hashtag_rollup r
+            JOIN hashtag h ON h.tagId = r.tagId
+            WHERE r.hourBucket >= ?
+            GROUP BY r.tagId, h.tagText
+            ORDER BY score DESC
+            LIMIT ?
+            """;
+        return jdbc.query(sql, (rs, row) ->
+                new TrendingHashtag(rs.getString("tagText"), Math.round(rs.getDouble("score"))),
+                lambda, since, limit);
+    }
+}
@@ -0,0 +1,104 @@
+package uga.menik.csx370.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import uga.menik.csx370.models.PostPage;
+
+/**
+ * Bounded in-process cache of hashtag search pages, shared by every
+ * viewer. Entries carry no viewer flags.
+ *
+ * Keys are the normalized query (sorted required, optional and excluded
+ * tagIds), the cursor and the page size, plus the current generation of
+ * every tag in the query. A new post bumps the generation of its tags, so
+ * only searches that mention one of them miss afterwards. The generations
+ * themselves are bounded and expire (CacheGenerations).
+ *
+ * Concurrent misses on the same key are coalesced: Caffeine runs the
+ * loader once and the other callers wait for its result. The short TTL
+ * bounds how stale counters and posts indexed by other instances can be.
+ */
+@Service
+public class HashtagSearchCache {
+
+    private final Cache<String, PostPage> pages;
+    private final CacheGenerations generations;
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public HashtagSearchCache(@Value("${hashtag-search-cache.max-pages:10000}") long maxPages,
+            @Value("${hashtag-search-cache.ttl-seconds:10}") long ttlSeconds) {
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.generations = new CacheGenerations(maxPages, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * Returns the cached page, loading it with loader on a miss. Callers
+     * asking for the same page while it loads share that one load.
+     */
+    public PostPage get(List<Integer> required, List<Integer> optional, List<Integer> excluded,
+            int beforePostId, int limit, Supplier<PostPage> loader) {
+        StringBuilder key = new StringBuilder();
+        appendTags(key, '+', required);
+        appendTags(key, '~', optional);
+        appendTags(key, '-', excluded);
+        key.append('<').append(beforePostId).append('/').append(limit);
+        return pages.get(key.toString(), k -> loader.get());
+    }
+
+    /**
+     * Drops every cached search that mentions one of the tags.
+     */
+    public void invalidateTags(Collection<Integer> tagIds) {
+        for (int tagId : tagIds) {
+            generations.bump(tagId);
+        }
+        invalidations.add(tagIds.size());
+    }
+
+    /**
+     * Hit, miss and load counters for the stats page.
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = pages.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loads", stats.loadCount());
+        result.put("entries", pages.estimatedSize());
+        result.put("generations", generations.size());
+        result.put("tagInvalidations", invalidations.sum());
+        return result;
+    }
+
+    // Appends the sorted tagIds, each with its generation, after marker.
+    private void appendTags(StringBuilder key, char marker, List<Integer> tagIds) {
+        List<Integer> sorted = new ArrayList<>(tagIds);
+        Collections.sort(sorted);
+        key.append(marker);
+        for (int tagId : sorted) {
+            key.append(tagId).append('.').append(generations.current(tagId)).append(',');
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package uga.menik.csx370.services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind ingestion of hearts.
+ *
+ * A heart writes its own likes row right away, which is idempotent on the
+ * (userId, postId) key and never contends with other users. The change to
+ * post.heartsCount is only recorded as a delta in a striped in-memory
+ * counter; a background flush adds all deltas gathered since the last
+ * flush in one batch, so a viral post takes one row update per flush
+ * instead of one per heart.
+ *
+ * The hearting user's cached feed pages and the post's cached detail pages
+ * are dropped right after the likes write and again once the flush has
+ * moved the post's count, so a reload shows the new count without waiting
+ * for the FeedCache or PostDetailCache TTL.
+ *
+ * The likes table stays the source of truth. Deltas not yet flushed when
+ * the process dies are recovered by PostStatsReconciler replaying likes
+ * into the counters at startup, and it repairs any drift later on. It does
+ * so through withDeltasFlushed, because a delta still pending here is
+ * already counted in likes and would otherwise be added twice.
+ */
+@Service
+public class HeartIngestService {
+
+    private final JdbcTemplate jdbc;
+    private final CounterShardService counterShards;
+    private final NotificationPipeline notifications;
+    private final ViewerMembership membership;
+    private final FeedCache feedCache;
+    private final PostDetailCache postDetailCache;
+    private final Map<Integer, LongAdder> pendingDeltas = new ConcurrentHashMap<>();
+    // Users whose hearts are in pendingDeltas, to invalidate after the flush.
+    private final Set<Integer> pendingUsers = ConcurrentHashMap.newKeySet();
+    private final LongAdder heartsRecorded = new LongAdder();
+    private final LongAdder rowsFlushed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    // Held shared from a likes write until its delta is recorded, and
+    // exclusively while pending deltas must not change.
+    private final ReadWriteLock ingestLock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public HeartIngestService(JdbcTemplate jdbc, CounterShardService counterShards, NotificationPipeline notifications,
+            ViewerMembership membership, FeedCache feedCache, PostDetailCache postDetailCache) {
+        this.jdbc = jdbc;
+        this.counterShards = counterShards;
+        this.notifications = notifications;
+        this.membership = membership;
+        this.feedCache = feedCache;
+        this.postDetailCache = postDetailCache;
+    }
+
+    /**
+     * Hearts the post. Returns false if the user had already hearted it.
+     */
+    public boolean addHeart(int userId, int postId) {
+        int inserted;
+        ingestLock.readLock().lock();
+        try {
+            inserted = jdbc.update("INSERT IGNORE INTO likes (userId, postId) VALUES (?, ?)", userId, postId);
+            if (inserted == 1) {
+                record(userId, postId, 1);
+            }
+        } finally {
+            ingestLock.readLock().unlock();
+        }
+        if (inserted == 1) {
+            membership.hearted(userId, postId, true);
+            notifications.heart(userId, postId);
+        }
+        return inserted == 1;
+    }
+
+    /**
+     * Removes the heart. Returns false if the user had not hearted the post.
+     */
+    public boolean removeHeart(int userId, int postId) {
+        int deleted;
+        ingestLock.readLock().lock();
+        try {
+            deleted = jdbc.update("DELETE FROM likes WHERE userId = ? AND postId = ?", userId, postId);
+            if (deleted == 1) {
+                record(userId, postId, -1);
+            }
+        } finally {
+            ingestLock.readLock().unlock();
+        }
+        if (deleted == 1) {
+            membership.hearted(userId, postId, false);
+        }
+        return deleted == 1;
+    }
+
+    private void record(int userId, int postId, int delta) {
+        pendingDeltas.computeIfAbsent(postId, k -> new LongAdder()).add(delta);
+        pendingUsers.add(userId);
+        heartsRecorded.increment();
+        feedCache.invalidateUser(userId);
+        postDetailCache.invalidatePost(postId);
+    }
+
+    /**
+     * Adds the gathered deltas to the post counters, or to the counter
+     * shards of hot posts (CounterShardService). Rows are updated in
+     * postId order so concurrent flushes from several instances lock them
+     * in the same order. Deltas that fail to write are put back.
+     */
+    @Scheduled(fixedDelayString = "${hearts.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        // Sorted by postId; zero sums are posts whose hearts cancelled out.
+        TreeMap<Integer, Long> batch = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : pendingDeltas.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                batch.put(entry.getKey(), delta);
+            }
+        }
+        removeIdleCounters();
+        List<Integer> users = new ArrayList<>(pendingUsers);
+        pendingUsers.removeAll(users);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            counterShards.addHearts(batch);
+            rowsFlushed.add(batch.size());
+            flushes.increment();
+            for (int userId : users) {
+                feedCache.invalidateUser(userId);
+            }
+            for (int postId : batch.keySet()) {
+                postDetailCache.invalidatePost(postId);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            batch.forEach((postId, delta) ->
+                    pendingDeltas.computeIfAbsent(postId, k -> new LongAdder()).add(delta));
+            pendingUsers.addAll(users);
+        }
+    }
+
+    // Drops the counters that are at zero. A heart adds to its counter
+    // under the shared lock, so while the exclusive lock is held no add
+    // can land on a counter being removed. Skipped when hearts are in
+    // flight; a later flush gets it.
+    private void removeIdleCounters() {
+        if (!ingestLock.writeLock().tryLock()) {
+            return;
+        }
+        try {
+            pendingDeltas.values().removeIf(delta -> delta.sum() == 0);
+        } finally {
+            ingestLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Pauses hearts, flushes every pending delta and runs work while likes
+     * and the stored counters agree. work gets the postIds whose deltas
+     * could not be flushed, so it can leave them alone. Returns its result.
+     */
+    public synchronized int withDeltasFlushed(Function<Set<Integer>, Integer> work) {
+        ingestLock.writeLock().lock();
+        try {
+            flush();
+            Set<Integer> unflushed = new HashSet<>();
+            pendingDeltas.forEach((postId, delta) -> {
+                if (delta.sum() != 0) {
+                    unflushed.add(postId);
+                }
+            });
+            return work.apply(unflushed);
+        } finally {
+            ingestLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes out whatever is pending on a clean shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Ingestion counters for the stats page.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("heartsRecorded", heartsRecorded.sum());
+        result.put("pendingPosts", pendingDeltas.size());
+        result.put("flushes", flushes.sum());
+        result.put("rowsFlushed", rowsFlushed.sum());
+        return result;
+    }
+}
@@ -0,0 +1,229 @@
+package uga.menik.csx370.services;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-Sent Events connections of the users on this instance.
+ *
+ * Each open page holds one SseEmitter. The request thread returns to
+ * Tomcat as soon as the emitter is handed back, so an idle connection
+ * costs a socket and this registry entry, not a thread. Events are handed
+ * to the small liveEventExecutor and written there, so the fan-out and
+ * notification threads that produce them never wait on a client's socket.
+ * When its queue is full the event is dropped and counted; the page still
+ * shows the change on its next load. With two writer threads, two events
+ * for the same user can occasionally be written out of order.
+ *
+ * A heartbeat comment goes out every live.heartbeat-interval-ms so proxies
+ * keep the connection open and dead clients fail a write and are dropped.
+ * Connections that carried no event for live.idle-timeout-ms are closed;
+ * the browser's EventSource reconnects if the page is still open.
+ */
+@Service
+public class LiveEventRegistry {
+
+    /**
+     * One open connection and when it last carried an event.
+     */
+    private static final class Subscriber {
+
+        final SseEmitter emitter = new SseEmitter(0L);
+        volatile long lastEventAt = System.currentTimeMillis();
+    }
+
+    // Time browsers wait before reconnecting after a connection closes.
+    private static final long RECONNECT_MILLIS = 5000;
+
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final int maxPerUser;
+    private final long idleTimeoutMillis;
+
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder eventsDropped = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    @Autowired
+    public LiveEventRegistry(@Qualifier("liveEventExecutor") Executor executor,
+            @Value("${live.max-connections-per-user:5}") int maxPerUser,
+            @Value("${live.idle-timeout-ms:1800000}") long idleTimeoutMillis) {
+        this.executor = executor;
+        this.maxPerUser = maxPerUser;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Opens a stream for the user. Beyond live.max-connections-per-user the
+     * user's oldest connection is closed.
+     */
+    public SseEmitter subscribe(int userId) {
+        Subscriber subscriber = new Subscriber();
+        Set<Subscriber> userSubscribers = subscribers.compute(userId, (k, set) -> {
+            Set<Subscriber> result = set == null ? new CopyOnWriteArraySet<>() : set;
+            result.add(subscriber);
+            return result;
+        });
+        connections.increment();
+
+        Runnable remove = () -> remove(userId, subscriber);
+        subscriber.emitter.onCompletion(remove);
+        subscriber.emitter.onTimeout(remove);
+        subscriber.emitter.onError(e -> remove.run());
+
+        if (userSubscribers.size() > maxPerUser) {
+            // Sets keep insertion order, so the first one is the oldest.
+            Iterator<Subscriber> oldest = userSubscribers.iterator();
+            if (oldest.hasNext()) {
+                close(userId, oldest.next());
+            }
+        }
+
+        try {
+            subscriber.emitter.send(SseEmitter.event().reconnectTime(RECONNECT_MILLIS).comment("connected"));
+        } catch (IOException e) {
+            close(userId, subscriber);
+        }
+        return subscriber.emitter;
+    }
+
+    public boolean isConnected(int userId) {
+        return subscribers.containsKey(userId);
+    }
+
+    /**
+     * Users with at least one open connection on this instance. A live view.
+     */
+    public Set<Integer> connectedUsers() {
+        return Collections.unmodifiableSet(subscribers.keySet());
+    }
+
+    /**
+     * Tells the user's open pages that a post arrived in their home feed.
+     */
+    public void sendNewPost(int userId, int authorId, int postId) {
+        send(userId, "post", "{\"postId\":" + postId + ",\"authorId\":" + authorId + "}");
+    }
+
+    /**
+     * Tells the user's open pages their new unread notification count.
+     */
+    public void sendUnreadCount(int userId, int unread) {
+        send(userId, "notification", "{\"unread\":" + unread + "}");
+    }
+
+    // Queues the event for the user's connections. Users with none cost
+    // nothing, so fan-out to offline followers never touches the executor.
+    private void send(int userId, String name, String json) {
+        if (!subscribers.containsKey(userId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> write(userId, name, json));
+        } catch (RejectedExecutionException e) {
+            eventsDropped.increment();
+        }
+    }
+
+    private void write(int userId, String name, String json) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().name(name).data(json));
+                subscriber.lastEventAt = System.currentTimeMillis();
+                eventsSent.increment();
+            } catch (IOException | IllegalStateException e) {
+                close(userId, subscriber);
+            }
+        }
+    }
+
+    /**
+     * Sends the heartbeat and closes idle connections.
+     */
+    @Scheduled(fixedDelayString = "${live.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        long idleBefore = System.currentTimeMillis() - idleTimeoutMillis;
+        for (Map.Entry<Integer, Set<Subscriber>> entry : subscribers.entrySet()) {
+            for (Subscriber subscriber : entry.getValue()) {
+                if (subscriber.lastEventAt < idleBefore) {
+                    close(entry.getKey(), subscriber);
+                    continue;
+                }
+                try {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    close(entry.getKey(), subscriber);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Map.Entry<Integer, Set<Subscriber>> entry : subscribers.entrySet()) {
+            for (Subscriber subscriber : entry.getValue()) {
+                close(entry.getKey(), subscriber);
+            }
+        }
+    }
+
+    private void close(int userId, Subscriber subscriber) {
+        if (remove(userId, subscriber)) {
+            evicted.increment();
+        }
+        try {
+            subscriber.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed.
+        }
+    }
+
+    // Returns true if the subscriber was still registered.
+    private boolean remove(int userId, Subscriber subscriber) {
+        boolean[] removed = { false };
+        subscribers.computeIfPresent(userId, (k, set) -> {
+            removed[0] = set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        if (removed[0]) {
+            connections.decrement();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Connection counters for the stats page.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("connections", connections.sum());
+        result.put("connectedUsers", subscribers.size());
+        result.put("eventsSent", eventsSent.sum());
+        result.put("eventsDropped", eventsDropped.sum());
+        result.put("evicted", evicted.sum());
+        return result;
+    }
+}
@@ -0,0 +1,318 @@
+package uga.menik.csx370.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Writes notifications off the request thread.
+ *
+ * Hearts, comments and follows publish a small event into a bounded
+ * in-process queue once their own write is done. A single consumer thread
+ * takes whatever arrived within notifications.batch-window-ms, coalesces
+ * events on the same post (or follows of the same user) into one row like
+ * "Ann and 12 others liked your post", and hands the batch to
+ * NotificationService, which writes it with multi-row INSERTs.
+ *
+ * When the queue is full, publishers wait up to
+ * notifications.offer-timeout-ms and then drop the event. Notifications
+ * are best effort, so a burst slows requests down a little but never
+ * stalls them; waits and drops are counted on /stats.
+ *
+ * A heart or follow by the same actor on the same post or user is only
+ * published once per notifications.repeat-window-seconds on each instance,
+ * so toggling a heart or a follow back and forth does not notify the
+ * recipient again each time. Comments are always published.
+ */
+@Service
+public class NotificationPipeline {
+
+    /**
+     * What happened, with the text that follows the actor's name.
+     */
+    public enum Kind {
+        HEART("liked your post"),
+        COMMENT("commented on your post"),
+        FOLLOW("started following you");
+
+        private final String text;
+
+        Kind(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * One action. postId is 0 for follows; recipientId is 0 for hearts and
+     * comments and is filled in from the post's author by the consumer.
+     */
+    private record Event(Kind kind, int actorId, int recipientId, int postId) {
+    }
+
+    /**
+     * Repeat suppression key. target is the postId, or the followed userId.
+     */
+    private record Repeat(Kind kind, int actorId, int target) {
+    }
+
+    /**
+     * Coalescing key: everything on one post, or follows of one user.
+     */
+    private record Group(Kind kind, int recipientId, int postId) {
+    }
+
+    // Rows per INSERT statement.
+    private static final int MAX_ROWS_PER_INSERT = 500;
+
+    private final JdbcTemplate jdbc;
+    private final NotificationService notificationService;
+    private final BlockingQueue<Event> queue;
+    private final long offerTimeoutMillis;
+    private final long batchWindowMillis;
+    private final int maxBatch;
+    private final Thread consumer;
+    private volatile boolean running = true;
+    // Hearts and follows published within the repeat window.
+    private final Cache<Repeat, Boolean> recent;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder repeats = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    @Autowired
+    public NotificationPipeline(JdbcTemplate jdbc, NotificationService notificationService,
+            @Value("${notifications.queue-capacity:10000}") int capacity,
+            @Value("${notifications.offer-timeout-ms:50}") long offerTimeoutMillis,
+            @Value("${notifications.batch-window-ms:500}") long batchWindowMillis,
+            @Value("${notifications.max-batch:2000}") int maxBatch,
+            @Value("${notifications.repeat-window-seconds:86400}") long repeatWindowSeconds,
+            @Value("${notifications.repeat-max-entries:100000}") long repeatMaxEntries) {
+        this.jdbc = jdbc;
+        this.notificationService = notificationService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.batchWindowMillis = batchWindowMillis;
+        this.maxBatch = maxBatch;
+        this.consumer = new Thread(this::consume, "notifications");
+        this.consumer.setDaemon(true);
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(repeatMaxEntries)
+                .expireAfterWrite(Duration.ofSeconds(repeatWindowSeconds))
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        consumer.start();
+    }
+
+    /**
+     * Stops taking new batches and writes what is still queued.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        consumer.interrupt();
+        consumer.join(5000);
+        List<Event> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    public void heart(int actorId, int postId) {
+        if (firstWithinWindow(Kind.HEART, actorId, postId)) {
+            publish(new Event(Kind.HEART, actorId, 0, postId));
+        }
+    }
+
+    public void comment(int actorId, int postId) {
+        publish(new Event(Kind.COMMENT, actorId, 0, postId));
+    }
+
+    public void follow(int followerId, int followingId) {
+        if (followerId != followingId && firstWithinWindow(Kind.FOLLOW, followerId, followingId)) {
+            publish(new Event(Kind.FOLLOW, followerId, followingId, 0));
+        }
+    }
+
+    // False if the same actor already did this to the same target within
+    // the repeat window, in which case the event is counted and skipped.
+    private boolean firstWithinWindow(Kind kind, int actorId, int target) {
+        if (recent.asMap().putIfAbsent(new Repeat(kind, actorId, target), Boolean.TRUE) == null) {
+            return true;
+        }
+        repeats.increment();
+        return false;
+    }
+
+    private void publish(Event event) {
+        published.increment();
+        if (queue.offer(event)) {
+            return;
+        }
+        blocked.increment();
+        try {
+            if (!queue.offer(event, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                dropped.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        }
+    }
+
+    private void consume() {
+        List<Event> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Event first = queue.take();
+                batch.add(first);
+                // Give the burst this event belongs to a moment to arrive.
+                long deadline = System.currentTimeMillis() + batchWindowMillis;
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.currentTimeMillis();
+                    Event next = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                // Shutting down; shutdown() writes what is left, this batch included.
+                for (Event event : batch) {
+                    queue.offer(event);
+                }
+                return;
+            } catch (Exception e) {
+                failedBatches.increment();
+                e.printStackTrace();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Event> events) {
+        Map<Integer, Integer> authors = postAuthors(events);
+
+        // Actors per group in arrival order, without repeats.
+        Map<Group, LinkedHashSet<Integer>> groups = new LinkedHashMap<>();
+        for (Event event : events) {
+            int recipientId = event.kind() == Kind.FOLLOW
+                    ? event.recipientId()
+                    : authors.getOrDefault(event.postId(), 0);
+            if (recipientId == 0 || recipientId == event.actorId()) {
+                continue;
+            }
+            groups.computeIfAbsent(new Group(event.kind(), recipientId, event.postId()), k -> new LinkedHashSet<>())
+                  .add(event.actorId());
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> named = new HashSet<>();
+        for (LinkedHashSet<Integer> actors : groups.values()) {
+            named.add(lastOf(actors));
+        }
+        Map<Integer, String> names = userNames(named);
+
+        List<Object[]> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<Group, LinkedHashSet<Integer>> entry : groups.entrySet()) {
+            LinkedHashSet<Integer> actors = entry.getValue();
+            String name = names.getOrDefault(lastOf(actors), "Someone");
+            int others = actors.size() - 1;
+            String message = others == 0 ? name
+                    : name + " and " + others + (others == 1 ? " other" : " others");
+            rows.add(new Object[] { entry.getKey().recipientId(), message + " " + entry.getKey().kind().text });
+        }
+        notificationService.deliver(rows, MAX_ROWS_PER_INSERT);
+        rowsWritten.add(rows.size());
+        batches.increment();
+    }
+
+    // Authors of every post in the batch, in one query.
+    private Map<Integer, Integer> postAuthors(List<Event> events) {
+        Set<Integer> postIds = new HashSet<>();
+        for (Event event : events) {
+            if (event.postId() != 0) {
+                postIds.add(event.postId());
+            }
+        }
+        Map<Integer, Integer> authors = new HashMap<>();
+        if (postIds.isEmpty()) {
+            return authors;
+        }
+        String placeholders = String.join(",", Collections.nCopies(postIds.size(), "?"));
+        jdbc.query("SELECT postId, userId FROM post WHERE postId IN (" + placeholders + ")",
+                rs -> { authors.put(rs.getInt("postId"), rs.getInt("userId")); }, postIds.toArray());
+        return authors;
+    }
+
+    private Map<Integer, String> userNames(Set<Integer> userIds) {
+        String placeholders = String.join(",", Collections.nCopies(userIds.size(), "?"));
+        Map<Integer, String> names = new HashMap<>();
+        jdbc.query("SELECT userId, firstName, lastName FROM user WHERE userId IN (" + placeholders + ")",
+                rs -> { names.put(rs.getInt("userId"), rs.getString("firstName") + " " + rs.getString("lastName")); },
+                userIds.toArray());
+        return names;
+    }
+
+    // The most recent actor is the one named.
+    private static int lastOf(LinkedHashSet<Integer> actors) {
+        int last = 0;
+        for (int actor : actors) {
+            last = actor;
+        }
+        return last;
+    }
+
+    /**
+     * Queue and write counters for the stats page.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("queued", queue.size());
+        result.put("remainingCapacity", queue.remainingCapacity());
+        result.put("published", published.sum());
+        result.put("repeatsSkipped", repeats.sum());
+        result.put("blocked", blocked.sum());
+        result.put("dropped", dropped.sum());
+        result.put("batches", batches.sum());
+        result.put("failedBatches", failedBatches.sum());
+        result.put("rowsWritten", rowsWritten.sum());
+        return result;
+    }
+}
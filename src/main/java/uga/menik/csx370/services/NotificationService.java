@@ -0,0 +1,193 @@
+package uga.menik.csx370.services;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import uga.menik.csx370.models.Notification;
+import uga.menik.csx370.models.NotificationPage;
+import uga.menik.csx370.models.PostCursor;
+
+/**
+ * Notification inbox and unread counts.
+ *
+ * Each user's unread count is kept in user_notification_state, updated in
+ * the same transaction as the notifications it counts, and cached in
+ * memory so the badge on every page is a map lookup. A user's entry is
+ * dropped after each commit that changes the count, and the reloaded
+ * count is pushed to the user's open pages through LiveEventRegistry.
+ * A count loaded while a delivery commits can miss that delivery; the
+ * TTL bounds how long.
+ *
+ * Inbox pages read the unread and read ranges of
+ * notifications(userId, isRead, createdAt) and merge them, so a page never
+ * sorts more than two index ranges of pageSize + 1 rows.
+ */
+@Service
+public class NotificationService {
+
+    public static final int PAGE_SIZE = 20;
+
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy, hh:mm a");
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final LiveEventRegistry liveEvents;
+    private final Cache<Integer, Integer> unreadCounts;
+
+    @Autowired
+    public NotificationService(JdbcTemplate jdbc, TransactionTemplate transactionTemplate,
+            LiveEventRegistry liveEvents,
+            @Value("${notifications.unread-cache-max-users:100000}") long maxUsers,
+            @Value("${notifications.unread-cache-ttl-seconds:300}") long ttlSeconds) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.liveEvents = liveEvents;
+        this.unreadCounts = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the number of unread notifications of the user.
+     */
+    public int getUnreadCount(int userId) {
+        return unreadCounts.get(userId, this::loadUnreadCount);
+    }
+
+    private int loadUnreadCount(int userId) {
+        List<Integer> counts = jdbc.queryForList(
+                "SELECT unreadCount FROM user_notification_state WHERE userId = ?", Integer.class, userId);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    /**
+     * Inserts notifications, given as (userId, message) pairs, and adds them
+     * to the recipients' unread counts in one transaction. Rows are written
+     * with multi-row INSERTs of at most maxRows rows each.
+     */
+    public void deliver(List<Object[]> rows, int maxRows) {
+        Map<Integer, Integer> perUser = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            perUser.merge((Integer) row[0], 1, Integer::sum);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < rows.size(); from += maxRows) {
+                List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + maxRows));
+                StringBuilder sql = new StringBuilder("INSERT INTO notifications (userId, message) VALUES ");
+                List<Object> params = new ArrayList<>(chunk.size() * 2);
+                for (Object[] row : chunk) {
+                    sql.append(params.isEmpty() ? "(?, ?)" : ", (?, ?)");
+                    params.add(row[0]);
+                    params.add(row[1]);
+                }
+                jdbc.update(sql.toString(), params.toArray());
+            }
+            List<Object[]> increments = new ArrayList<>(perUser.size());
+            perUser.forEach((userId, count) -> increments.add(new Object[] { userId, count }));
+            jdbc.batchUpdate("INSERT INTO user_notification_state (userId, unreadCount) VALUES (?, ?) " +
+                             "ON DUPLICATE KEY UPDATE unreadCount = unreadCount + VALUES(unreadCount)", increments);
+        });
+        // Adding to a cached count could count this delivery twice if the
+        // entry was loaded after the commit, so the entry is reloaded instead.
+        perUser.forEach((userId, count) -> {
+            unreadCounts.invalidate(userId);
+            if (liveEvents.isConnected(userId)) {
+                liveEvents.sendUnreadCount(userId, getUnreadCount(userId));
+            }
+        });
+    }
+
+    /**
+     * Marks every notification of the user as read.
+     */
+    public void markAllRead(int userId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbc.update("UPDATE notifications SET isRead = TRUE WHERE userId = ? AND isRead = FALSE", userId);
+            jdbc.update("UPDATE user_notification_state SET unreadCount = 0 WHERE userId = ?", userId);
+        });
+        unreadCounts.invalidate(userId);
+        liveEvents.sendUnreadCount(userId, 0);
+    }
+
+    /**
+     * Returns one page of the user's notifications, newest first, starting
+     * strictly before the cursor in before (null for the first page).
+     */
+    public NotificationPage getInbox(int userId, String before) {
+        PostCursor cursor = PostCursor.parse(before);
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM (\n");
+        appendRange(sql, params, userId, false, cursor);
+        sql.append("UNION ALL\n");
+        appendRange(sql, params, userId, true, cursor);
+        sql.append(") inbox ORDER BY createdAt DESC, notificationId DESC LIMIT ?");
+        params.add(PAGE_SIZE + 1);
+
+        List<PostCursor> cursors = new ArrayList<>();
+        List<Notification> notifications = jdbc.query(sql.toString(), (rs, row) -> {
+            cursors.add(new PostCursor(rs.getTimestamp("createdAt"), rs.getInt("notificationId")));
+            return mapNotification(rs);
+        }, params.toArray());
+
+        if (notifications.size() <= PAGE_SIZE) {
+            return new NotificationPage(notifications, null);
+        }
+        return new NotificationPage(new ArrayList<>(notifications.subList(0, PAGE_SIZE)),
+                cursors.get(PAGE_SIZE - 1).encode());
+    }
+
+    // One isRead range of the user's notifications, newest first.
+    private void appendRange(StringBuilder sql, List<Object> params, int userId, boolean isRead, PostCursor cursor) {
+        sql.append("(SELECT notificationId, message, createdAt, isRead FROM notifications\n")
+           .append(" WHERE userId = ? AND isRead = ?\n");
+        params.add(userId);
+        params.add(isRead);
+        if (cursor != null) {
+            sql.append(" AND (createdAt < ? OR (createdAt = ? AND notificationId < ?))\n");
+            params.add(cursor.getCreatedAt());
+            params.add(cursor.getCreatedAt());
+            params.add(cursor.getPostId());
+        }
+        sql.append(" ORDER BY createdAt DESC, notificationId DESC LIMIT ?)\n");
+        params.add(PAGE_SIZE + 1);
+    }
+
+    private Notification mapNotification(ResultSet rs) throws SQLException {
+        return new Notification(
+            String.valueOf(rs.getInt("notificationId")),
+            rs.getString("message"),
+            rs.getTimestamp("createdAt").toLocalDateTime().format(DISPLAY_FORMAT),
+            rs.getBoolean("isRead")
+        );
+    }
+
+    /**
+     * Unread count cache counters for the stats page.
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = unreadCounts.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("unreadHits", stats.hitCount());
+        result.put("unreadMisses", stats.missCount());
+        result.put("unreadCachedUsers", unreadCounts.estimatedSize());
+        return result;
+    }
+}
@@ -9,17 +9,21 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import uga.menik.csx370.models.FollowableUser;
+import uga.menik.csx370.models.FollowableUserPage;
 import uga.menik.csx370.models.User;
 import uga.menik.csx370.utility.Utility;
 
@@ -31,53 +35,52 @@ public class PeopleService {
     @Autowired
     private final DataSource dataSource;
     @Autowired
-    private PostService postService;
+    private TimelineService timelineService;
+    @Autowired
+    private FollowGraph followGraph;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private NotificationPipeline notificationPipeline;
     
     @Autowired
     public PeopleService(DataSource dataSource) {
         this.dataSource = dataSource;
     }
 
-    /**
-     * This function should query and return all users that 
-     * are followable. The list should not contain the user 
-     * with id userIdToExclude.
-     */
-    public List<FollowableUser> getFollowableUsers(String userIdToExclude) {
-        // Write an SQL query to find the users that are not the current user.
-
-        // Run the query with a datasource.
-        // See UserService.java to see how to inject DataSource instance and
-        // use it to run a query.
-    
-        // Use the query result to create a list of followable users.
-        // See UserService.java to see how to access rows and their attributes
-        // from the query result.
-        // Check the following createSampleFollowableUserList function to see 
-        // how to create a list of FollowableUsers.    
+    // Users per page on /people.
+    public static final int PAGE_SIZE = 50;
 
-        // Replace the following line and return the list you created.
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy, hh:mm a");
 
+    /**
+     * Returns one page of users other than userIdToExclude, in userId order,
+     * starting after the userId in after (null for the first page).
+     * Last activity is the denormalized user.lastPostAt, so the page is one
+     * query; isFollowed comes from the in-memory FollowGraph.
+     */
+    public FollowableUserPage getFollowableUsers(String userIdToExclude, String after) {
         List<FollowableUser> followableUsers = new ArrayList<>();
 
-        final String sql = "select * from user where userId != ?";
+        final String sql = """
+            select userId, firstName, lastName, lastPostAt
+            from user
+            where userId > ? and userId != ?
+            order by userId
+            limit ?
+            """;
 
         try (Connection conn = dataSource.getConnection();
                         PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                            pstmt.setString(1, userIdToExclude);
+            int currentUserId = Integer.parseInt(userIdToExclude);
+            pstmt.setInt(1, parseCursor(after));
+            pstmt.setInt(2, currentUserId);
+            // One extra row tells whether there is a next page.
+            pstmt.setInt(3, PAGE_SIZE + 1);
             try (ResultSet rs = pstmt.executeQuery()) {
-                // Traverse the result rows one at a time.
-                // Note: This specific while loop will only run at most once 
-                // since username is unique.
                 while (rs.next()) {
-                    String userId = rs.getString("userId");
-                    String firstName = rs.getString("firstName");
-                    String lastName = rs.getString("lastName");
-                    boolean isFollowed = false;
-                    String lastActiveDate = "";
-
-                    FollowableUser user = new FollowableUser(userId, firstName, lastName, isFollowed, lastActiveDate);
-                    followableUsers.add(user);
+                    boolean isFollowed = followGraph.isFollowing(currentUserId, rs.getInt("userId"));
+                    followableUsers.add(toFollowableUser(rs, isFollowed));
                 }
             } 
         }
@@ -85,7 +88,71 @@ public class PeopleService {
         catch(SQLException e) {
             e.printStackTrace();
         }
-        return followableUsers;
+
+        if (followableUsers.size() <= PAGE_SIZE) {
+            return new FollowableUserPage(followableUsers, null);
+        }
+        List<FollowableUser> page = new ArrayList<>(followableUsers.subList(0, PAGE_SIZE));
+        return new FollowableUserPage(page, page.get(PAGE_SIZE - 1).getUserId());
+    }
+
+    /**
+     * Returns the users with the given ids, in the same order, for showing
+     * "who to follow" suggestions. One query for the whole list.
+     */
+    public List<FollowableUser> getUsersByIds(String currentUserIdText, int[] userIds) {
+        List<FollowableUser> users = new ArrayList<>();
+        if (userIds.length == 0) {
+            return users;
+        }
+        int currentUserId = Integer.parseInt(currentUserIdText);
+        String placeholders = String.join(",", Collections.nCopies(userIds.length, "?"));
+        final String sql = "select userId, firstName, lastName, lastPostAt from user where userId in (" + placeholders + ")";
+
+        Map<Integer, FollowableUser> byId = new HashMap<>();
+        try (Connection conn = dataSource.getConnection();
+                        PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < userIds.length; i++) {
+                pstmt.setInt(i + 1, userIds[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int userId = rs.getInt("userId");
+                    byId.put(userId, toFollowableUser(rs, followGraph.isFollowing(currentUserId, userId)));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        for (int userId : userIds) {
+            FollowableUser user = byId.get(userId);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private FollowableUser toFollowableUser(ResultSet rs, boolean isFollowed) throws SQLException {
+        String userId = rs.getString("userId");
+        String firstName = rs.getString("firstName");
+        String lastName = rs.getString("lastName");
+        Timestamp lastPostAt = rs.getTimestamp("lastPostAt");
+        String lastActiveDate = lastPostAt == null
+                ? "No posts yet"
+                : lastPostAt.toLocalDateTime().format(DISPLAY_FORMAT);
+        return new FollowableUser(userId, firstName, lastName, isFollowed, lastActiveDate);
+    }
+
+    // The people cursor is the last userId shown; anything else starts from the top.
+    private int parseCursor(String after) {
+        if (after == null || after.isBlank()) return 0;
+        try {
+            return Math.max(Integer.parseInt(after.trim()), 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     /*
@@ -93,13 +160,15 @@ public class PeopleService {
      */
     public void followUser(int followerId, int followingId) {
         final String sql = "insert ignore into follows (followerId, followingId) values (?, ?)";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, followerId);
-            pstmt.setInt(2, followingId);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        // MySQL applies the assignments in order, so isCelebrity sees the new count.
+        final String countSql = "update user set followersCount = followersCount + 1, " +
+                                "isCelebrity = (isCelebrity or followersCount >= ?) where userId = ?";
+        if (updateFollow(sql, countSql, followerId, followingId,
+                timelineService.getCelebrityThreshold(), followingId)) {
+            followGraph.addEdge(followerId, followingId);
+            recommendationService.onFollowChanged(followerId);
+            timelineService.onFollow(followerId, followingId);
+            notificationPipeline.follow(followerId, followingId);
         }
     } // followUser
 
@@ -108,49 +177,47 @@ public class PeopleService {
      */
     public void unfollowUser(int followerId, int followingId) {
         final String sql = "delete from follows where followerId = ? and followingId = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, followerId);
-            pstmt.setInt(2, followingId);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        // isCelebrity stays set: the author's earlier posts were never pushed.
+        if (updateFollow(sql, "update user set followersCount = greatest(followersCount - 1, 0) where userId = ?",
+                followerId, followingId, followingId)) {
+            followGraph.removeEdge(followerId, followingId);
+            recommendationService.onFollowChanged(followerId);
+            timelineService.onUnfollow(followerId, followingId);
         }
     } // unfollowUser
 
     /*
-     * Get users except for loggedin user
+     * Changes the follows row and the followed user's followersCount together.
+     * countSql is bound to countParams in order.
+     * Returns true if the follows row actually changed.
      */
-    public List<Map<String, String>> getAllUsersExcept(int loggedInUserId) {
-        List<Map<String, String>> users = new ArrayList<>();
-
-        final String sql = "SELECT userId, firstName, lastName FROM user WHERE userId != ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, loggedInUserId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                int userId = rs.getInt("userId");
-                String first = rs.getString("firstName");
-                String last = rs.getString("lastName");
-
-                // Get last post time from PostService
-                String lastPostTime = postService.getLastPostTimeForUser(userId);
-
-                Map<String, String> item = new HashMap<>();
-                item.put("userId", String.valueOf(userId));
-                item.put("name", first + " " + last);
-                item.put("lastPostTime", lastPostTime);
-
-                users.add(item);
+    private boolean updateFollow(String followSql, String countSql, int followerId, int followingId,
+            Object... countParams) {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement followStmt = conn.prepareStatement(followSql);
+                 PreparedStatement countStmt = conn.prepareStatement(countSql)) {
+                followStmt.setInt(1, followerId);
+                followStmt.setInt(2, followingId);
+                boolean changed = followStmt.executeUpdate() == 1;
+                if (changed) {
+                    for (int i = 0; i < countParams.length; i++) {
+                        countStmt.setObject(i + 1, countParams[i]);
+                    }
+                    countStmt.executeUpdate();
+                }
+                conn.commit();
+                return changed;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
         }
-
-        return users;
-    }
-
+    } // updateFollow
 
 }
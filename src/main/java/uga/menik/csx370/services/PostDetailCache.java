@@ -0,0 +1,79 @@
+package uga.menik.csx370.services;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import uga.menik.csx370.models.PostDetail;
+
+/**
+ * Bounded in-process cache of post detail pages keyed by post and comments
+ * cursor. Entries carry no viewer flags and are shared by every viewer.
+ *
+ * Invalidation is per post, by generation number like FeedCache: a new
+ * comment, a heart and each flush of the post's heart count
+ * (HeartIngestService) bump the post's generation and its older pages age
+ * out. The generations themselves are bounded and expire (CacheGenerations).
+ */
+@Service
+public class PostDetailCache {
+
+    /**
+     * Cache key. The cursor is "" for the first page of comments.
+     */
+    private record Key(int postId, long generation, String cursor) {
+    }
+
+    private final Cache<Key, PostDetail> pages;
+    private final CacheGenerations generations;
+
+    @Autowired
+    public PostDetailCache(@Value("${post-detail-cache.max-entries:20000}") long maxEntries,
+            @Value("${post-detail-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.generations = new CacheGenerations(maxEntries, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * Returns the cached page, loading it with loader on a miss. A null
+     * result (missing post) is not cached.
+     */
+    public PostDetail get(int postId, String cursor, Supplier<PostDetail> loader) {
+        Key key = new Key(postId, generations.current(postId), cursor == null ? "" : cursor);
+        return pages.get(key, k -> loader.get());
+    }
+
+    /**
+     * Drops every cached page of the given post.
+     */
+    public void invalidatePost(int postId) {
+        generations.bump(postId);
+    }
+
+    /**
+     * Hit and miss counters for the stats page.
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = pages.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("entries", pages.estimatedSize());
+        result.put("generations", generations.size());
+        return result;
+    }
+}
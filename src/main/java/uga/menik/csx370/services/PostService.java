@@ -10,13 +10,12 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -24,18 +23,60 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import uga.menik.csx370.models.Comment;
+import uga.menik.csx370.models.ExpandedPost;
 import uga.menik.csx370.models.Post;
+import uga.menik.csx370.models.PostCursor;
+import uga.menik.csx370.models.PostDetail;
+import uga.menik.csx370.models.PostPage;
 import uga.menik.csx370.models.User;
+import uga.menik.csx370.utility.HashtagQuery;
+import uga.menik.csx370.utility.HashtagTokenizer;
 
 @Service
 public class PostService {
 
     @Autowired
     private JdbcTemplate jdbc;
+    @Autowired
+    private TimelineService timelineService;
+    @Autowired
+    private FeedCache feedCache;
+    @Autowired
+    private ViewerStateService viewerStateService;
+    @Autowired
+    private HashtagDictionary hashtagDictionary;
+    @Autowired
+    private HashtagIndex hashtagIndex;
+    @Autowired
+    private TrendingService trendingService;
+    @Autowired
+    private CounterShardService counterShardService;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private PostDetailCache postDetailCache;
+    @Autowired
+    private NotificationPipeline notificationPipeline;
+    @Autowired
+    private HashtagSearchCache hashtagSearchCache;
+    @Autowired
+    private ViewerMembership viewerMembership;
 
     private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy, hh:mm a");
 
+    // Comments shown per page on the post detail view.
+    public static final int COMMENTS_PAGE_SIZE = 20;
+
+    // Page sizes are capped here no matter what the caller asks for.
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 50;
+    // Deepest page of free text search results served.
+    public static final int MAX_SEARCH_PAGES = 10;
+
     // CREATE POST + HASHTAGS
     @Transactional
     public void createPost(int userId, String content) {
@@ -56,95 +97,407 @@ public class PostService {
 
         int postId = keyHolder.getKey().intValue();
 
-        Set<String> hashtags = extractHashtags(trimmedContent);
-        for (String tag : hashtags) {
-            int tagId = getOrCreateHashtag(tag);
-            jdbc.update("INSERT IGNORE INTO post_hashtag (postId, tagId) VALUES (?, ?)", postId, tagId);
+        Set<String> hashtags = HashtagTokenizer.hashtags(trimmedContent);
+        Map<String, Integer> tagIds = Map.of();
+        if (!hashtags.isEmpty()) {
+            tagIds = hashtagDictionary.getOrCreate(hashtags);
+            List<Object[]> rows = new ArrayList<>(tagIds.size());
+            for (int tagId : tagIds.values()) {
+                rows.add(new Object[] { postId, tagId });
+            }
+            jdbc.batchUpdate("INSERT IGNORE INTO post_hashtag (postId, tagId) VALUES (?, ?)", rows);
         }
+
+        // Keeps the people page's last activity current without a per-user query.
+        jdbc.update("UPDATE user u JOIN post p ON p.postId = ? SET u.lastPostAt = p.createdAt WHERE u.userId = ?",
+                postId, userId);
+
+        // The author's own timeline is written now, followers' after commit.
+        timelineService.addToOwnTimeline(postId);
+        Collection<Integer> postTagIds = tagIds.values();
+        afterCommit(() -> {
+            hashtagIndex.addPost(postId, postTagIds);
+            hashtagSearchCache.invalidateTags(postTagIds);
+            trendingService.record(hashtags);
+            recommendationService.onPost(userId, System.currentTimeMillis() / 1000);
+            feedCache.invalidateUser(userId);
+            timelineService.fanOut(userId, postId);
+        });
     }
 
-    private Set<String> extractHashtags(String content) {
-        Set<String> tags = new HashSet<>();
-        Matcher m = Pattern.compile("#(\\w+)").matcher(content);
-        while (m.find()) {
-            tags.add(m.group(1).toLowerCase());
+    // Runs the task once the current transaction commits, or right away if there is none.
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
         }
-        return tags;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
     }
 
-    private int getOrCreateHashtag(String tagText) {
-        final String finalTagText = tagText.toLowerCase();
+    // HEARTS are written behind by HeartIngestService.
 
-        String sql = "SELECT tagId FROM hashtag WHERE tagText = ?";
-        List<Integer> ids = jdbc.query(sql, (rs, row) -> rs.getInt(1), finalTagText);
-        if (!ids.isEmpty()) return ids.get(0);
+    // COMMENTS: the comment row and commentsCount move together.
+    @Transactional
+    public void addComment(int userId, int postId, String commentText) {
+        if (commentText == null || commentText.isBlank()) {
+            throw new IllegalArgumentException("Comment cannot be empty");
+        }
 
-        KeyHolder kh = new GeneratedKeyHolder();
-        jdbc.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO hashtag (tagText) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, finalTagText);
-            return ps;
-        }, kh);
-        return kh.getKey().intValue();
+        jdbc.update("INSERT INTO comments (userId, postId, commentText) VALUES (?, ?, ?)",
+                userId, postId, commentText.trim());
+        counterShardService.addComment(postId);
+        afterCommit(() -> {
+            postDetailCache.invalidatePost(postId);
+            notificationPipeline.comment(userId, postId);
+        });
+    }
+
+    // POST DETAIL: ONE POST WITH A PAGE OF ITS COMMENTS
+    // Two queries: the post with its stored counters, then one keyset page
+    // of comments with their authors, newest first, walking the
+    // (postId, createdAt, commentId) index. Pages are cached per post in
+    // PostDetailCache without viewer flags and invalidated by addComment.
+    // Returns null if the post does not exist.
+    public PostDetail getPostDetail(int postId, int currentUserId, String before) {
+        PostDetail detail = postDetailCache.get(postId, before, () -> loadPostDetail(postId, before));
+        if (detail == null) return null;
+        List<Post> withViewer = viewerStateService.applyViewerState(List.of(detail.getPost()), currentUserId);
+        return new PostDetail((ExpandedPost) withViewer.get(0), detail.getNextCommentsCursor());
+    }
+
+    private PostDetail loadPostDetail(int postId, String before) {
+        String postSql = "SELECT p.postId, p.content, p.createdAt, u.userId, u.firstName, u.lastName, " +
+                         CounterShardService.COUNTER_COLUMNS +
+                         "FROM post p " +
+                         "JOIN user u ON p.userId = u.userId " +
+                         "WHERE p.postId = ?";
+        List<Post> found = jdbc.query(postSql, this::mapPost, postId);
+        if (found.isEmpty()) return null;
+        Post post = found.get(0);
+
+        PostCursor cursor = PostCursor.parse(before);
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("""
+            SELECT c.commentId, c.commentText, c.createdAt, u.userId, u.firstName, u.lastName
+            FROM comments c
+            JOIN user u ON c.userId = u.userId
+            WHERE c.postId = ?
+            """);
+        params.add(postId);
+        if (cursor != null) {
+            sql.append("AND (c.createdAt < ? OR (c.createdAt = ? AND c.commentId < ?))\n");
+            params.add(cursor.getCreatedAt());
+            params.add(cursor.getCreatedAt());
+            params.add(cursor.getPostId());
+        }
+        // One extra row tells whether there is a next page.
+        sql.append("ORDER BY c.createdAt DESC, c.commentId DESC LIMIT ?");
+        params.add(COMMENTS_PAGE_SIZE + 1);
+
+        List<PostCursor> cursors = new ArrayList<>();
+        List<Comment> comments = jdbc.query(sql.toString(), (rs, row) -> {
+            cursors.add(new PostCursor(rs.getTimestamp("createdAt"), rs.getInt("commentId")));
+            User author = new User(String.valueOf(rs.getInt("userId")),
+                    rs.getString("firstName"), rs.getString("lastName"));
+            return new Comment(String.valueOf(rs.getInt("commentId")), rs.getString("commentText"),
+                    rs.getTimestamp("createdAt").toLocalDateTime().format(DISPLAY_FORMAT), author);
+        }, params.toArray());
+
+        String nextCursor = null;
+        if (comments.size() > COMMENTS_PAGE_SIZE) {
+            comments = new ArrayList<>(comments.subList(0, COMMENTS_PAGE_SIZE));
+            nextCursor = cursors.get(COMMENTS_PAGE_SIZE - 1).encode();
+        }
+        ExpandedPost expanded = new ExpandedPost(post.getPostId(), post.getContent(), post.getPostDate(),
+                post.getUser(), post.getHeartsCount(), post.getCommentsCount(), false, false, comments);
+        return new PostDetail(expanded, nextCursor);
     }
 
     // HOME FEED: YOUR POSTS + POSTS FROM PEOPLE YOU FOLLOW
-    public List<Post> getHomeFeed(int currentUserId) {
-        String sql = """
-            SELECT p.postId, p.content, p.createdAt, u.userId, u.firstName, u.lastName,
-                   COUNT(DISTINCT l.userId) as heartsCount,
-                   COUNT(DISTINCT c.commentId) as commentsCount,
-                   EXISTS(SELECT 1 FROM likes l2 WHERE l2.postId = p.postId AND l2.userId = ?) as isHearted,
-                   EXISTS(SELECT 1 FROM bookmarks b WHERE b.postId = p.postId AND b.userId = ?) as isBookmarked
-            FROM post p
+    // Keyset paginated on (createdAt, postId) so every page costs the same
+    // no matter how far back the user scrolls. Pushed posts come from one
+    // range scan on the user's timeline; posts of followed celebrities are
+    // not pushed (see TimelineService) and are merged in here instead.
+    // Pages are served from FeedCache, which is invalidated on new posts,
+    // follow changes and the viewer's own hearts. Cached pages carry no
+    // viewer flags; ViewerStateService overlays them per request.
+    public PostPage getHomeFeed(int currentUserId, String before, int pageSize) {
+        int limit = clampPageSize(pageSize);
+        PostCursor cursor = PostCursor.parse(before);
+        PostPage page = feedCache.get(currentUserId, cursor, limit, () -> loadHomeFeed(currentUserId, cursor, limit));
+        return viewerStateService.applyViewerState(page, currentUserId);
+    }
+
+    private PostPage loadHomeFeed(int currentUserId, PostCursor cursor, int limit) {
+        List<Object> params = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT p.postId, p.content, p.createdAt, u.userId, u.firstName, u.lastName, ")
+            .append(CounterShardService.COUNTER_COLUMNS)
+            .append("""
+            FROM (
+                (SELECT t.postId, t.createdAt FROM timeline t
+                 WHERE t.ownerUserId = ?
+            """);
+        params.add(currentUserId);
+        appendKeyset(sql, params, "t", cursor);
+        sql.append("""
+                 ORDER BY t.createdAt DESC, t.postId DESC LIMIT ?)
+                UNION
+                (SELECT cp.postId, cp.createdAt FROM follows f
+                 JOIN user c ON c.userId = f.followingId AND c.isCelebrity
+                 JOIN post cp ON cp.userId = f.followingId
+                 WHERE f.followerId = ?
+            """);
+        // Fetch one extra row to know whether there is a next page.
+        params.add(limit + 1);
+        params.add(currentUserId);
+        appendKeyset(sql, params, "cp", cursor);
+        sql.append("""
+                 ORDER BY cp.createdAt DESC, cp.postId DESC LIMIT ?)
+            ) page
+            JOIN post p ON p.postId = page.postId
             JOIN user u ON p.userId = u.userId
-            LEFT JOIN likes l ON l.postId = p.postId
-            LEFT JOIN comments c ON c.postId = p.postId
-            WHERE p.userId = ? OR p.userId IN (
-                SELECT followedId FROM follow WHERE followerId = ?
-            )
-            GROUP BY p.postId, u.userId, u.firstName, u.lastName
-            ORDER BY p.createdAt DESC
-            """;
-
-        return jdbc.query(sql, this::mapPost, currentUserId, currentUserId, currentUserId, currentUserId);
+            ORDER BY page.createdAt DESC, page.postId DESC
+            LIMIT ?
+            """);
+        params.add(limit + 1);
+        params.add(limit + 1);
+
+        return queryPage(sql.toString(), limit, params.toArray());
+    }
+
+    // Restricts alias to rows strictly before the cursor in (createdAt, postId) order.
+    private void appendKeyset(StringBuilder sql, List<Object> params, String alias, PostCursor cursor) {
+        if (cursor == null) return;
+        sql.append(" AND (").append(alias).append(".createdAt < ? OR (")
+           .append(alias).append(".createdAt = ? AND ").append(alias).append(".postId < ?))\n");
+        params.add(cursor.getCreatedAt());
+        params.add(cursor.getCreatedAt());
+        params.add(cursor.getPostId());
+    }
+
+    private int clampPageSize(int pageSize) {
+        if (pageSize <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    // Runs a query that returns up to limit + 1 posts and turns it into a page.
+    private PostPage queryPage(String sql, int limit, Object... params) {
+        return queryPage(sql, "createdAt", limit, params);
+    }
+
+    // Same, for pages keyed on another timestamp column than the post's createdAt.
+    private PostPage queryPage(String sql, String cursorColumn, int limit, Object... params) {
+        List<PostCursor> cursors = new ArrayList<>();
+        List<Post> posts = jdbc.query(sql, (rs, row) -> {
+            cursors.add(new PostCursor(rs.getTimestamp(cursorColumn), rs.getInt("postId")));
+            return mapPost(rs, row);
+        }, params);
+
+        if (posts.size() <= limit) {
+            return new PostPage(posts, null);
+        }
+        return new PostPage(new ArrayList<>(posts.subList(0, limit)), cursors.get(limit - 1).encode());
+    }
+
+    // HASHTAG SEARCH: POSTS MATCHING A HASHTAG QUERY
+    // Matching runs on HashtagIndex bitmaps (see HashtagQuery for the
+    // #and / ~#or / -#not syntax). Results are newest first by postId and
+    // paged with the last postId as the cursor, so MySQL only ever sees the
+    // ids of the page being shown. Pages are shared by all viewers through
+    // HashtagSearchCache; concurrent identical searches run once and new
+    // posts invalidate the searches that mention their tags.
+    public PostPage searchByHashtags(String query, int currentUserId, String before, int pageSize) {
+        HashtagQuery parsed = HashtagQuery.parse(query);
+        if (parsed.isEmpty()) return new PostPage(List.of(), null);
+
+        // Tags become ids through the dictionary. A required tag that does
+        // not exist matches nothing; unknown optional or excluded tags are ignored.
+        Map<String, Integer> tagIds = hashtagDictionary.resolve(parsed.allTags());
+        if (!tagIds.keySet().containsAll(parsed.getRequired())) return new PostPage(List.of(), null);
+        List<Integer> required = idsOf(parsed.getRequired(), tagIds);
+        List<Integer> optional = idsOf(parsed.getOptional(), tagIds);
+        List<Integer> excluded = idsOf(parsed.getExcluded(), tagIds);
+        if (required.isEmpty() && optional.isEmpty()) return new PostPage(List.of(), null);
+
+        int limit = clampPageSize(pageSize);
+        int beforePostId = parseCursorNumber(before);
+        PostPage page = hashtagSearchCache.get(required, optional, excluded, beforePostId, limit,
+                () -> loadHashtagSearch(required, optional, excluded, beforePostId, limit));
+        return viewerStateService.applyViewerState(page, currentUserId);
     }
 
-    // HASHTAG SEARCH: ALL POSTS WITH GIVEN HASHTAG(S)
-    public List<Post> searchByHashtags(String query, int currentUserId) {
-        if (query == null || query.trim().isEmpty()) return List.of();
+    private PostPage loadHashtagSearch(List<Integer> required, List<Integer> optional, List<Integer> excluded,
+            int beforePostId, int limit) {
+        // One extra id tells whether there is a next page.
+        int[] postIds = hashtagIndex.search(required, optional, excluded, beforePostId, limit + 1);
+        if (postIds.length == 0) return new PostPage(List.of(), null);
 
-        String[] tags = Arrays.stream(query.split("\\s+"))
-                .filter(s -> s.startsWith("#"))
-                .map(s -> s.substring(1).toLowerCase())
-                .toArray(String[]::new);
+        List<Post> posts = loadPostsInOrder(postIds, Math.min(postIds.length, limit));
+        String nextCursor = postIds.length > limit ? String.valueOf(postIds[limit - 1]) : null;
+        return new PostPage(posts, nextCursor);
+    }
 
-        if (tags.length == 0) return List.of();
+    // FREE TEXT SEARCH: POSTS MATCHING WORDS IN THEIR CONTENT
+    // Ranked by the FULLTEXT index on post.content (natural language mode,
+    // so MySQL's minimum word length and stopwords apply). The ranking
+    // query returns postIds only; just the page shown is hydrated. Relevance
+    // order has no stable keyset, so pages are numbered and capped at
+    // MAX_SEARCH_PAGES.
+    public PostPage searchPosts(String query, int currentUserId, String page, int pageSize) {
+        if (query == null || query.isBlank()) return new PostPage(List.of(), null);
+        int limit = clampPageSize(pageSize);
+        int pageNumber = Math.min(Math.max(parseCursorNumber(page), 1), MAX_SEARCH_PAGES);
+
+        final String sql = "SELECT postId FROM post " +
+                           "WHERE MATCH(content) AGAINST (? IN NATURAL LANGUAGE MODE) " +
+                           "ORDER BY MATCH(content) AGAINST (? IN NATURAL LANGUAGE MODE) DESC, postId DESC " +
+                           "LIMIT ? OFFSET ?";
+        String terms = query.trim();
+        // One extra id tells whether there is a next page.
+        List<Integer> ids = jdbc.queryForList(sql, Integer.class, terms, terms, limit + 1, (pageNumber - 1) * limit);
+        if (ids.isEmpty()) return new PostPage(List.of(), null);
+
+        int[] postIds = ids.stream().mapToInt(Integer::intValue).toArray();
+        List<Post> posts = loadPostsInOrder(postIds, Math.min(postIds.length, limit));
+        String nextCursor = postIds.length > limit && pageNumber < MAX_SEARCH_PAGES
+                ? String.valueOf(pageNumber + 1) : null;
+        return viewerStateService.applyViewerState(new PostPage(posts, nextCursor), currentUserId);
+    }
 
-        String placeholders = String.join(",", Collections.nCopies(tags.length, "?"));
+    // Loads the first count posts of postIds in one query, in the order given.
+    private List<Post> loadPostsInOrder(int[] postIds, int count) {
+        Object[] params = new Object[count];
+        for (int i = 0; i < count; i++) {
+            params[i] = postIds[i];
+        }
+        String placeholders = String.join(",", Collections.nCopies(count, "?"));
         String sql = "SELECT p.postId, p.content, p.createdAt, u.userId, u.firstName, u.lastName, " +
-                     "COUNT(DISTINCT l.userId) as heartsCount, " +
-                     "COUNT(DISTINCT c.commentId) as commentsCount, " +
-                     "EXISTS(SELECT 1 FROM likes l2 WHERE l2.postId = p.postId AND l2.userId = ?) as isHearted, " +
-                     "EXISTS(SELECT 1 FROM bookmarks b WHERE b.postId = p.postId AND b.userId = ?) as isBookmarked " +
+                     CounterShardService.COUNTER_COLUMNS +
                      "FROM post p " +
                      "JOIN user u ON p.userId = u.userId " +
-                     "JOIN post_hashtag ph ON ph.postId = p.postId " +
-                     "JOIN hashtag h ON h.tagId = ph.tagId " +
-                     "LEFT JOIN likes l ON l.postId = p.postId " +
-                     "LEFT JOIN comments c ON c.postId = p.postId " +
-                     "WHERE h.tagText IN (" + placeholders + ") " +
-                     "GROUP BY p.postId, u.userId, u.firstName, u.lastName " +
-                     "ORDER BY p.createdAt DESC";
-
-        List<Object> params = new ArrayList<>(Arrays.asList(tags));
-        params.add(currentUserId);
+                     "WHERE p.postId IN (" + placeholders + ")";
+
+        Map<String, Post> byId = new HashMap<>();
+        for (Post post : jdbc.query(sql, this::mapPost, params)) {
+            byId.put(post.getPostId(), post);
+        }
+        List<Post> posts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Skips posts deleted since they were matched.
+            Post post = byId.get(String.valueOf(postIds[i]));
+            if (post != null) posts.add(post);
+        }
+        return posts;
+    }
+
+    private List<Integer> idsOf(Set<String> tags, Map<String, Integer> tagIds) {
+        List<Integer> ids = new ArrayList<>();
+        for (String tag : tags) {
+            Integer tagId = tagIds.get(tag);
+            if (tagId != null) ids.add(tagId);
+        }
+        return ids;
+    }
+
+    // Hashtag search cursors are the last postId shown and text search
+    // cursors the next page number; anything else starts from the top.
+    private int parseCursorNumber(String before) {
+        if (before == null || before.isBlank()) return 0;
+        try {
+            return Math.max(Integer.parseInt(before.trim()), 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // BOOKMARKS: toggles are idempotent on the UNIQUE (userId, postId) key.
+    // Cached feed pages carry no viewer flags, so a toggle leaves them all
+    // in place; only the viewer's ViewerMembership bitmap is updated.
+    public boolean addBookmark(int userId, int postId) {
+        boolean added = jdbc.update("INSERT IGNORE INTO bookmarks (userId, postId) VALUES (?, ?)", userId, postId) == 1;
+        if (added) {
+            viewerMembership.bookmarked(userId, postId, true);
+        }
+        return added;
+    }
+
+    public boolean removeBookmark(int userId, int postId) {
+        boolean removed = jdbc.update("DELETE FROM bookmarks WHERE userId = ? AND postId = ?", userId, postId) == 1;
+        if (removed) {
+            viewerMembership.bookmarked(userId, postId, false);
+        }
+        return removed;
+    }
+
+    // BOOKMARKS PAGE: MOST RECENTLY BOOKMARKED FIRST
+    // Keyset paginated on the bookmark's (createdAt, postId). The inner
+    // query is covered by bookmarks(userId, createdAt, postId), so only the
+    // posts of the page shown are read. Counters are the stored ones and
+    // ViewerStateService fills in isHearted and isBookmarked in one lookup.
+    public PostPage getBookmarkedPosts(int currentUserId, String before, int pageSize) {
+        int limit = clampPageSize(pageSize);
+        PostCursor cursor = PostCursor.parse(before);
+        List<Object> params = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT p.postId, p.content, p.createdAt, b.createdAt AS bookmarkedAt, u.userId, u.firstName, u.lastName, ")
+            .append(CounterShardService.COUNTER_COLUMNS)
+            .append("""
+            FROM (
+                SELECT b.postId, b.createdAt FROM bookmarks b
+                WHERE b.userId = ?
+            """);
         params.add(currentUserId);
+        appendKeyset(sql, params, "b", cursor);
+        sql.append("""
+                ORDER BY b.createdAt DESC, b.postId DESC LIMIT ?
+            ) b
+            JOIN post p ON p.postId = b.postId
+            JOIN user u ON p.userId = u.userId
+            ORDER BY b.createdAt DESC, b.postId DESC
+            """);
+        // One extra row tells whether there is a next page.
+        params.add(limit + 1);
+
+        PostPage page = queryPage(sql.toString(), "bookmarkedAt", limit, params.toArray());
+        return viewerStateService.applyViewerState(page, currentUserId);
+    }
 
-        return jdbc.query(sql, this::mapPost, params.toArray());
+    // PROFILE: ONE USER'S POSTS, NEWEST FIRST
+    // Keyset paginated on (createdAt, postId); each page is one range scan
+    // on post(userId, createdAt, postId).
+    public PostPage getPostsByUser(int profileUserId, int currentUserId, String before, int pageSize) {
+        int limit = clampPageSize(pageSize);
+        PostCursor cursor = PostCursor.parse(before);
+        List<Object> params = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT p.postId, p.content, p.createdAt, u.userId, u.firstName, u.lastName, ")
+            .append(CounterShardService.COUNTER_COLUMNS)
+            .append("""
+            FROM post p
+            JOIN user u ON p.userId = u.userId
+            WHERE p.userId = ?
+            """);
+        params.add(profileUserId);
+        appendKeyset(sql, params, "p", cursor);
+        // One extra row tells whether there is a next page.
+        sql.append("ORDER BY p.createdAt DESC, p.postId DESC LIMIT ?");
+        params.add(limit + 1);
+
+        PostPage page = queryPage(sql.toString(), limit, params.toArray());
+        return viewerStateService.applyViewerState(page, currentUserId);
     }
 
+    // Maps the viewer independent columns. isHearted and isBookmarked start
+    // false and are filled in by ViewerStateService.
     private Post mapPost(ResultSet rs, int row) throws SQLException {
         String postId = String.valueOf(rs.getInt("postId"));
         String content = rs.getString("content");
@@ -163,284 +516,8 @@ public class PostService {
             user,
             rs.getInt("heartsCount"),
             rs.getInt("commentsCount"),
-            rs.getBoolean("isHearted"),
-            rs.getBoolean("isBookmarked")
+            false,
+            false
         );
     }
 }
-package uga.menik.csx370.services;
-
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.List;
-
-import javax.sql.DataSource;
-import java.util.ArrayList;
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-
-import uga.menik.csx370.models.Post;
-import java.util.Collections;
-import java.util.Comparator;
-import uga.menik.csx370.models.User;
-import java.sql.Timestamp;
-import java.time.format.DateTimeFormatter;
-
-
-/*
- * Contains post related functions 
- */
-@Service
-public class PostService {
-    // connection to database
-    @Autowired
-    private DataSource dataSource;
-
-    public PostService(DataSource dataSource) {
-        this.dataSource = dataSource;
-    }
-
-    /*
-     * Helper method to sort posts by most recent post first
-     */
-    private void sortPostsByDateDecending(List<Post> posts) {
-        Collections.sort(posts, new Comparator<Post>() {
-            @Override
-            public int compare(Post a, Post b) {
-                return b.getPostDate().compareTo(a.getPostDate());
-            }
-        });
-    } // sortPostsByDateDecending
-
-    /*
-     * Helper method to get user by id
-     */
-    private User getUserById(int id) {
-        User user = null;
-        final String sql = "select * from user where userId = ?";
-        try(Connection conn = dataSource.getConnection(); 
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-
-            if(rs.next()) {
-                user = new User(
-                    String.valueOf(rs.getInt("userId")),
-                    rs.getString("firstName"),
-                    rs.getString("lastName")
-                );
-            } // if
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } // try catch
-        return user;
-    } // getUserById
-
-    /*
-     * Gets all posts
-     */
-    public List<Post> getAllPosts() {
-        List<Post> posts = new ArrayList<>();
-        final String sql = "select * from post";
-
-        try(Connection conn = dataSource.getConnection(); 
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            ResultSet rs = pstmt.executeQuery();
-            // add posts from database to post list
-            while(rs.next()) {
-                int userId = rs.getInt("userId");
-                User user = getUserById(userId); // add to UserService
-                Post post = new Post(
-                    String.valueOf(rs.getInt("postId")),
-                    rs.getString("content"),
-                    rs.getString("createdAt"),
-                    user,
-                    0,
-                    0,
-                    false,
-                    false
-                );
-                posts.add(post);
-            } // while
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } // try catch
-
-        // sort posts
-        sortPostsByDateDecending(posts);
-
-        return posts;
-
-    } // getAllPosts
-
-    /*
-     * Gets posts by specific user
-     */
-    public List<Post> getPostsByUser(String userId) {
-        List<Post> posts = new ArrayList<>();
-        final String sql = "select * from post where userId = ? order by createdAt desc";
-        try(Connection conn = dataSource.getConnection(); 
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, Integer.parseInt(userId));
-            ResultSet rs = pstmt.executeQuery();
-
-            while(rs.next()) {
-                User user = getUserById(rs.getInt("userId"));
-                 Post post = new Post(
-                     String.valueOf(rs.getInt("postId")),
-                     rs.getString("content"),
-                     rs.getString("createdAt"),
-                     user,
-                     0,
-                     0,
-                     false,
-                     false
-                 );
-                 posts.add(post);
-            } // while
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } // try catch
-        return posts;
-    } // getPostsByUser
-
-    /*
-     * Adding a new post
-     */
-    public void addPost(String userId, String content) {
-        final String sql = "insert into post (userId, content, postDate, heartsCount, commentsCount, isBookmarked) values (?, ?, now(), 0, 0, false)";
-        try(Connection conn = dataSource.getConnection(); 
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, Integer.parseInt(userId));
-                pstmt.setString(2, content);
-                pstmt.executeQuery();
-                System.out.println("Post added to database by user " + userId);
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } // try catch
-    } // addPost
-
-    /*
-     * Liking and unliking a post
-     */
-    public void toggleHeart(String postId, boolean isAdd) {
-        final String sql = isAdd
-            ? "update post set heartsCount = heartsCount + 1 where postId = ?"
-            : "update post set heartsCount = greatest(heartsCount - 1, 0) where postId = ?";
-
-        try(Connection conn = dataSource.getConnection(); 
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, Integer.parseInt(postId));
-            pstmt.executeQuery();
-            System.out.println("Heart added to database on post " + postId);
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } // try catch
-    } // toggleHeart
-
-    /*
-     * Adds bookmark
-     */
-    public boolean addBookmark(int userId, int postId) {
-        final String sql = "INSERT INTO bookmarks (userId, postId) VALUES (?, ?)";
-        try (Connection conn = dataSource.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, postId);
-            pstmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            // This might happen if they already bookmarked it
-            e.printStackTrace();
-            return false;
-        }
-    } // addBookmark
-
-    /*
-     * Removes bookmark
-     */
-    public boolean removeBookmark(int userId, int postId) {
-        final String sql = "DELETE FROM bookmarks WHERE userId = ? AND postId = ?";
-        try (Connection conn = dataSource.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, postId);
-            pstmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
-    } // removeBookmark
-    
-    /*
-     * List of posts bookmarked by user
-     */
-    public List<Post> getBookmarkedPosts(String userId) {
-        List<Post> posts = new ArrayList<>();
-        // check sql staement
-        String sql = "select p.postId, p.userId, p.content, p.createdAt, u.firstName, u.lastName from post p join bookmarks b on p.postId = b.postId join user u on p.userId = u.userId where b.userId = ? order by p.createdAt desc";
-
-        try(Connection conn = dataSource.getConnection(); 
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while(rs.next()) {
-                String postId = String.valueOf(rs.getInt("postId"));
-                String content = rs.getString("content");
-                String createdAt = rs.getTimestamp("createdAt").toString();
-                String postUserId = String.valueOf(rs.getInt("userId"));
-                String firstName = rs.getString("firstName");
-                String lastName = rs.getString("lastName");
-                User user = new User(postUserId, firstName, lastName);
-                int heartsCount = 0;
-                int commentsCount = 0;
-                boolean isHearted = false;
-                boolean isBookmarked = true; // since these are bookmarked posts
-
-                Post post = new Post(postId, content, createdAt, user, heartsCount, commentsCount, isHearted, isBookmarked);
-                posts.add(post);
-            } // while
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } // try catch
-        return posts;
-    } // getBookmarkedPosts
-
-    /*
-     * Formats last
-     */
-    public String getLastPostTimeForUser(int userId) {
-        String sql = "SELECT createdAt FROM post WHERE userId = ? ORDER BY createdAt DESC LIMIT 1";
-        try (Connection conn = dataSource.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                Timestamp ts = rs.getTimestamp("createdAt");
-                if (ts != null) {
-                    DateTimeFormatter fmt = DateTimeFormatter.ofPattern("MMM dd, yyyy, hh:mm a");
-                    return ts.toLocalDateTime().format(fmt);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "No posts yet";
-    } // getLastPostTimeForUser
-
-
-} // PostService 
@@ -0,0 +1,114 @@
+package uga.menik.csx370.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Repairs drift between the denormalized post.heartsCount / post.commentsCount
+ * columns and the likes / comments tables they summarize.
+ * Runs over the post table in postId ranges so no single statement
+ * locks a large part of the table.
+ *
+ * Hearts reach heartsCount through HeartIngestService's write-behind flush.
+ * Each range is fixed inside HeartIngestService.withDeltasFlushed, so this
+ * instance has no delta pending that likes already counts; posts whose
+ * deltas failed to flush are skipped until the next run. Deltas pending
+ * on other instances can still be counted twice until the next run there.
+ * Posts with counter shards keep the shard totals out of the post row
+ * (CounterShardService), so those are subtracted from the source counts.
+ */
+@Service
+public class PostStatsReconciler {
+
+    // Number of postIds covered by one UPDATE.
+    private static final int RANGE_SIZE = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final HeartIngestService heartIngestService;
+
+    @Autowired
+    public PostStatsReconciler(JdbcTemplate jdbc, HeartIngestService heartIngestService) {
+        this.jdbc = jdbc;
+        this.heartIngestService = heartIngestService;
+    }
+
+    /**
+     * Replays likes into post.heartsCount once the app is up, covering
+     * deltas a previous process gathered but never flushed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        int repaired = reconcileAll();
+        System.out.println("Heart replay repaired counters on " + repaired + " posts");
+    }
+
+    /**
+     * Scheduled entry point. See application.properties for the interval.
+     */
+    @Scheduled(initialDelayString = "${post-stats.reconcile-initial-delay-ms:60000}",
+               fixedDelayString = "${post-stats.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        int repaired = reconcileAll();
+        if (repaired > 0) {
+            System.out.println("Reconciled counters on " + repaired + " posts");
+        }
+    }
+
+    /**
+     * Walks every post range and fixes the counters that disagree with
+     * the source tables. Returns the number of posts repaired.
+     */
+    public int reconcileAll() {
+        Integer maxPostId = jdbc.queryForObject("SELECT COALESCE(MAX(postId), 0) FROM post", Integer.class);
+        int repaired = 0;
+        for (int from = 0; from < maxPostId; from += RANGE_SIZE) {
+            int fromExclusive = from;
+            repaired += heartIngestService.withDeltasFlushed(
+                    unflushed -> reconcileRange(fromExclusive, fromExclusive + RANGE_SIZE, unflushed));
+        }
+        return repaired;
+    }
+
+    /**
+     * Fixes counters for posts with fromExclusive < postId <= toInclusive,
+     * except the posts in skipPostIds.
+     */
+    public int reconcileRange(int fromExclusive, int toInclusive, Collection<Integer> skipPostIds) {
+        List<Object> params = new ArrayList<>(List.of(fromExclusive, toInclusive, fromExclusive, toInclusive,
+                fromExclusive, toInclusive, fromExclusive, toInclusive));
+        StringBuilder skip = new StringBuilder();
+        for (int postId : skipPostIds) {
+            if (postId > fromExclusive && postId <= toInclusive) {
+                skip.append(skip.length() == 0 ? "  AND p.postId NOT IN (?" : ", ?");
+                params.add(postId);
+            }
+        }
+        if (skip.length() > 0) {
+            skip.append(")\n");
+        }
+
+        final String sql = """
+            UPDATE post p
+            LEFT JOIN (SELECT postId, COUNT(*) AS n FROM likes
+                       WHERE postId > ? AND postId <= ? GROUP BY postId) l ON l.postId = p.postId
+            LEFT JOIN (SELECT postId, COUNT(*) AS n FROM comments
+                       WHERE postId > ? AND postId <= ? GROUP BY postId) c ON c.postId = p.postId
+            LEFT JOIN (SELECT postId, SUM(hearts) AS hearts, SUM(comments) AS comments FROM post_counter_shard
+                       WHERE postId > ? AND postId <= ? GROUP BY postId) s ON s.postId = p.postId
+            SET p.heartsCount = COALESCE(l.n, 0) - COALESCE(s.hearts, 0),
+                p.commentsCount = COALESCE(c.n, 0) - COALESCE(s.comments, 0)
+            WHERE p.postId > ? AND p.postId <= ?
+              AND (p.heartsCount <> COALESCE(l.n, 0) - COALESCE(s.hearts, 0)
+                   OR p.commentsCount <> COALESCE(c.n, 0) - COALESCE(s.comments, 0))
+            """;
+        return jdbc.update(sql + skip, params.toArray());
+    }
+}
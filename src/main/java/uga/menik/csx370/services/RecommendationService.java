@@ -0,0 +1,341 @@
+package uga.menik.csx370.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * "Who to follow" suggestions.
+ *
+ * A candidate's score for a user is the number of people the user follows
+ * who follow the candidate, plus a bonus for having posted recently that
+ * halves every RECENCY_HALF_LIFE_DAYS. Everything is computed from
+ * FollowGraph and an in-memory copy of user.lastPostAt, so scoring never
+ * touches MySQL. Users with few or no mutual follows are topped up with the
+ * most recently active accounts.
+ *
+ * The top TOP_N per user are precomputed on a fork-join pool, first on a
+ * background thread once the app is up so startup does not wait for it,
+ * and kept in a bounded cache. A follow change marks the follower and the
+ * follower's own followers dirty, since both of their two-hop
+ * neighbourhoods changed; dirty users are rescored in the background.
+ *
+ * Each follow change also stamps the affected users with a new change
+ * number. A rescore only stores its result if the user's stamp is the one
+ * it started from, so a slow full refresh cannot overwrite the list of a
+ * user whose follows changed while it ran.
+ */
+@Service
+public class RecommendationService {
+
+    public static final int TOP_N = 50;
+
+    private static final double RECENCY_WEIGHT = 2.0;
+    private static final double RECENCY_HALF_LIFE_DAYS = 7.0;
+
+    // Size of the recently active fallback list.
+    private static final int RECENT_USERS = 200;
+
+    private final JdbcTemplate jdbc;
+    private final FollowGraph followGraph;
+    private final ForkJoinPool pool;
+    private final Cache<Integer, int[]> topCandidates;
+    private final Set<Integer> dirtyUsers = ConcurrentHashMap.newKeySet();
+    // Change number of each user's last follow neighbourhood change. Only
+    // users whose follows changed since startup have an entry.
+    private final Map<Integer, Long> changedAt = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+
+    // Epoch seconds of each user's newest post, indexed by userId, 0 if none.
+    private volatile long[] lastPostSeconds = new long[0];
+    // Most recently active userIds, newest first.
+    private volatile int[] recentUsers = new int[0];
+
+    @Autowired
+    public RecommendationService(JdbcTemplate jdbc, FollowGraph followGraph,
+            @Value("${recommendations.parallelism:0}") int parallelism,
+            @Value("${recommendations.cache-max-users:100000}") long maxUsers) {
+        this.jdbc = jdbc;
+        this.followGraph = followGraph;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.topCandidates = Caffeine.newBuilder().maximumSize(maxUsers).build();
+    }
+
+    /**
+     * Starts the first full refresh off the startup thread. Until it is
+     * done, recommend computes lists on demand.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshOnStartup() {
+        Thread thread = new Thread(this::refreshAll, "recommendations-startup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reloads activity times and rescores every user.
+     * Runs once the app is up and then on a schedule.
+     */
+    @Scheduled(initialDelayString = "${recommendations.refresh-interval-ms:1800000}",
+               fixedDelayString = "${recommendations.refresh-interval-ms:1800000}")
+    public synchronized void refreshAll() {
+        long started = System.currentTimeMillis();
+        List<Integer> userIds = new ArrayList<>();
+        List<long[]> activity = new ArrayList<>();
+        jdbc.query("SELECT userId, UNIX_TIMESTAMP(lastPostAt) AS lastPost FROM user", rs -> {
+            int userId = rs.getInt("userId");
+            userIds.add(userId);
+            long lastPost = rs.getLong("lastPost");
+            if (lastPost > 0) {
+                activity.add(new long[] { userId, lastPost });
+            }
+        });
+
+        int maxUserId = 0;
+        for (int userId : userIds) {
+            maxUserId = Math.max(maxUserId, userId);
+        }
+        long[] seconds = new long[maxUserId + 1];
+        for (long[] row : activity) {
+            seconds[(int) row[0]] = row[1];
+        }
+        activity.sort((a, b) -> Long.compare(b[1], a[1]));
+        int[] recent = new int[Math.min(RECENT_USERS, activity.size())];
+        for (int i = 0; i < recent.length; i++) {
+            recent[i] = (int) activity.get(i)[0];
+        }
+        lastPostSeconds = seconds;
+        recentUsers = recent;
+
+        rescore(userIds);
+        System.out.println("Recommendations computed for " + userIds.size() + " users in "
+                + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    /**
+     * Rescores users whose follow neighbourhood changed since the last run.
+     */
+    @Scheduled(fixedDelayString = "${recommendations.dirty-interval-ms:10000}")
+    public void refreshDirty() {
+        if (dirtyUsers.isEmpty()) {
+            return;
+        }
+        List<Integer> batch = new ArrayList<>(dirtyUsers);
+        dirtyUsers.removeAll(batch);
+        rescore(batch);
+    }
+
+    /**
+     * Called by PeopleService after followerId followed or unfollowed someone.
+     */
+    public void onFollowChanged(int followerId) {
+        // Until the rescore, drop the stale list so the next read recomputes it.
+        markChanged(followerId, true);
+        for (int follower : followGraph.followersOf(followerId)) {
+            markChanged(follower, false);
+        }
+    }
+
+    // Stamps the user with a new change number and queues a rescore. Done
+    // inside the cache's per-key compute, so it cannot interleave with the
+    // check-and-store in rescore.
+    private void markChanged(int userId, boolean invalidate) {
+        topCandidates.asMap().compute(userId, (k, ids) -> {
+            changedAt.put(userId, changes.incrementAndGet());
+            return invalidate ? null : ids;
+        });
+        dirtyUsers.add(userId);
+    }
+
+    /**
+     * Called after a post is committed so recency reflects it.
+     */
+    public void onPost(int userId, long epochSeconds) {
+        long[] seconds = lastPostSeconds;
+        if (userId < seconds.length) {
+            seconds[userId] = epochSeconds;
+        }
+        // Users newer than the last refresh show up after the next one.
+    }
+
+    /**
+     * Returns up to TOP_N suggested userIds for the user, best first.
+     */
+    public int[] recommend(int userId) {
+        return topCandidates.get(userId, this::compute);
+    }
+
+    /**
+     * Cache and pool sizes for the stats page.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cachedUsers", topCandidates.estimatedSize());
+        result.put("dirtyUsers", dirtyUsers.size());
+        result.put("changedUsers", changedAt.size());
+        result.put("poolParallelism", pool.getParallelism());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void rescore(List<Integer> userIds) {
+        try {
+            pool.submit(() -> userIds.parallelStream().forEach(this::rescore)).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Stores a fresh list unless the user's follows changed while it was
+    // computed; the dirty rescore queued by that change stores it then.
+    private void rescore(int userId) {
+        long startedAt = changedAt.getOrDefault(userId, 0L);
+        int[] ids = compute(userId);
+        topCandidates.asMap().compute(userId, (k, current) ->
+                changedAt.getOrDefault(userId, 0L) == startedAt ? ids : current);
+    }
+
+    // Scores every user two follow hops away and keeps the best TOP_N.
+    private int[] compute(int userId) {
+        int[] following = followGraph.followingOf(userId);
+
+        // Gather two-hop ids and count each run after sorting.
+        int total = 0;
+        int[][] hops = new int[following.length][];
+        for (int i = 0; i < following.length; i++) {
+            hops[i] = followGraph.followingOf(following[i]);
+            total += hops[i].length;
+        }
+        int[] candidates = new int[total];
+        int at = 0;
+        for (int[] hop : hops) {
+            System.arraycopy(hop, 0, candidates, at, hop.length);
+            at += hop.length;
+        }
+        Arrays.sort(candidates);
+
+        TopN top = new TopN(TOP_N);
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < candidates.length; ) {
+            int candidate = candidates[i];
+            int j = i;
+            while (j < candidates.length && candidates[j] == candidate) {
+                j++;
+            }
+            if (isEligible(userId, candidate, following)) {
+                top.offer(candidate, (j - i) + recencyBonus(candidate, now));
+            }
+            i = j;
+        }
+
+        // Cold start and small graphs: top up with recently active users.
+        for (int candidate : recentUsers) {
+            if (top.size() >= TOP_N) {
+                break;
+            }
+            if (isEligible(userId, candidate, following) && !top.contains(candidate)) {
+                top.offer(candidate, recencyBonus(candidate, now) - RECENCY_WEIGHT);
+            }
+        }
+        return top.idsBestFirst();
+    }
+
+    private static boolean isEligible(int userId, int candidate, int[] following) {
+        return candidate != userId && Arrays.binarySearch(following, candidate) < 0;
+    }
+
+    private double recencyBonus(int candidate, long now) {
+        long[] seconds = lastPostSeconds;
+        if (candidate >= seconds.length || seconds[candidate] == 0) {
+            return 0;
+        }
+        double ageDays = Math.max(now - seconds[candidate], 0) / 86400.0;
+        return RECENCY_WEIGHT * Math.pow(0.5, ageDays / RECENCY_HALF_LIFE_DAYS);
+    }
+
+    /**
+     * Keeps the n highest scoring ids seen. n is small, so finding the
+     * weakest entry is a linear scan.
+     */
+    private static final class TopN {
+
+        private final int[] ids;
+        private final double[] scores;
+        private int size;
+
+        TopN(int n) {
+            ids = new int[n];
+            scores = new double[n];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void offer(int id, double score) {
+            if (size < ids.length) {
+                ids[size] = id;
+                scores[size] = score;
+                size++;
+                return;
+            }
+            int weakest = 0;
+            for (int i = 1; i < size; i++) {
+                if (scores[i] < scores[weakest]) {
+                    weakest = i;
+                }
+            }
+            if (score > scores[weakest]) {
+                ids[weakest] = id;
+                scores[weakest] = score;
+            }
+        }
+
+        int[] idsBestFirst() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = ids[order[i]];
+            }
+            return result;
+        }
+    }
+}
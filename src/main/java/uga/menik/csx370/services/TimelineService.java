@@ -0,0 +1,132 @@
+package uga.menik.csx370.services;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains the materialized home timeline (fan-out on write).
+ * Each new post is pushed into the timeline table of every follower of
+ * the author, so reading a home feed is one range scan on timeline.
+ * Authors flagged user.isCelebrity are not pushed; their posts are merged
+ * in at read time by PostService.getHomeFeed. Both sides read the same
+ * flag, and it is never cleared once set, so a post is always either
+ * pushed or pulled: one the fan-out pushed before its author became a
+ * celebrity is also pulled, and the read side drops the duplicate.
+ *
+ * A celebrity post does not walk the follower list at all. Only the
+ * followers with a page open on this instance get their cached feed
+ * dropped and a live event; the others see the post once their cached
+ * pages expire (feed-cache.ttl-seconds).
+ */
+@Service
+public class TimelineService {
+
+    // How many recent posts of a newly followed user are copied into the timeline.
+    private static final int FOLLOW_BACKFILL_LIMIT = 200;
+
+    private final JdbcTemplate jdbc;
+    private final FeedCache feedCache;
+    private final FollowGraph followGraph;
+    private final LiveEventRegistry liveEvents;
+    private final int celebrityThreshold;
+
+    @Autowired
+    public TimelineService(JdbcTemplate jdbc, FeedCache feedCache, FollowGraph followGraph,
+            LiveEventRegistry liveEvents,
+            @Value("${timeline.celebrity-follower-threshold:10000}") int celebrityThreshold) {
+        this.jdbc = jdbc;
+        this.feedCache = feedCache;
+        this.followGraph = followGraph;
+        this.liveEvents = liveEvents;
+        this.celebrityThreshold = celebrityThreshold;
+    }
+
+    /**
+     * Follower count at which PeopleService flags an author as a celebrity.
+     */
+    public int getCelebrityThreshold() {
+        return celebrityThreshold;
+    }
+
+    /**
+     * Adds a post to its author's own timeline. Called inside the
+     * createPost transaction so the author sees the post right away.
+     */
+    public void addToOwnTimeline(int postId) {
+        jdbc.update("INSERT IGNORE INTO timeline (ownerUserId, postId, createdAt) " +
+                    "SELECT userId, postId, createdAt FROM post WHERE postId = ?", postId);
+    }
+
+    /**
+     * Pushes a post into the timelines of the author's followers.
+     * Runs on the fan-out executor after the post is committed.
+     */
+    @Async("fanOutExecutor")
+    public void fanOut(int authorId, int postId) {
+        if (isCelebrity(authorId)) {
+            // Bounded by the open connections here, not by the follower count.
+            for (int userId : liveEvents.connectedUsers()) {
+                if (followGraph.isFollowing(userId, authorId)) {
+                    feedCache.invalidateUser(userId);
+                    liveEvents.sendNewPost(userId, authorId, postId);
+                }
+            }
+            return;
+        }
+        jdbc.update("""
+            INSERT IGNORE INTO timeline (ownerUserId, postId, createdAt)
+            SELECT f.followerId, p.postId, p.createdAt
+            FROM post p
+            JOIN follows f ON f.followingId = p.userId
+            WHERE p.postId = ?
+            """, postId);
+        // Followers' cached feeds go stale once the post is in their
+        // timelines, so drop them and tell open pages only after the insert.
+        for (int followerId : followGraph.followersOf(authorId)) {
+            feedCache.invalidateUser(followerId);
+            liveEvents.sendNewPost(followerId, authorId, postId);
+        }
+    }
+
+    /**
+     * Copies the recent posts of a newly followed user into the follower's timeline.
+     */
+    public void onFollow(int followerId, int followingId) {
+        if (isCelebrity(followingId)) {
+            feedCache.invalidateUser(followerId);
+            return;
+        }
+        jdbc.update("""
+            INSERT IGNORE INTO timeline (ownerUserId, postId, createdAt)
+            SELECT ?, p.postId, p.createdAt
+            FROM post p
+            WHERE p.userId = ?
+            ORDER BY p.createdAt DESC, p.postId DESC
+            LIMIT ?
+            """, followerId, followingId, FOLLOW_BACKFILL_LIMIT);
+        feedCache.invalidateUser(followerId);
+    }
+
+    /**
+     * Removes an unfollowed user's posts from the follower's timeline.
+     */
+    public void onUnfollow(int followerId, int followingId) {
+        jdbc.update("""
+            DELETE t FROM timeline t
+            JOIN post p ON p.postId = t.postId
+            WHERE t.ownerUserId = ? AND p.userId = ?
+            """, followerId, followingId);
+        feedCache.invalidateUser(followerId);
+    }
+
+    private boolean isCelebrity(int userId) {
+        List<Boolean> flags = jdbc.queryForList("SELECT isCelebrity FROM user WHERE userId = ?",
+                Boolean.class, userId);
+        return !flags.isEmpty() && flags.get(0);
+    }
+}
@@ -1,36 +1,209 @@
 package uga.menik.csx370.services;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
-import javax.sql.DataSource;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import uga.menik.csx370.models.TrendingHashtag;
+import uga.menik.csx370.utility.CountMinSketch;
+
+/**
+ * Streaming trending hashtags.
+ *
+ * createPost feeds every tag it stores into one sliding window per
+ * TrendingWindow. A window is a ring of per-bucket Count-Min Sketches plus
+ * a running sketch of the whole window; when a bucket falls out of the
+ * window its sketch is subtracted from the running one. Next to the
+ * sketches each window keeps a small set of heavy hitter candidates with
+ * their estimates, so reading the top tags never touches the database and
+ * costs the same no matter how many posts were made.
+ *
+ * Counts are per instance. They are rebuilt from post_hashtag at startup.
+ * Windows that are not live, and callers that want scores shared by every
+ * instance, read the decayed hourly rollup instead.
+ */
 @Service
 public class TrendingService {
 
-    private final DataSource dataSource;
+    // Number of tags shown on the trending page.
+    public static final int TOP_K = 10;
+
+    // Candidates tracked per window. Larger than TOP_K so a tag climbing
+    // into the top does not need to have been there from the start.
+    private static final int CANDIDATES = 100;
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1024;
+
+    private final JdbcTemplate jdbc;
+    private final HashtagRollupService rollupService;
+    private final Map<TrendingWindow, SlidingWindow> windows = new EnumMap<>(TrendingWindow.class);
 
     @Autowired
-    public TrendingService(DataSource dataSource) {
-        this.dataSource = dataSource;
+    public TrendingService(JdbcTemplate jdbc, HashtagRollupService rollupService) {
+        this.jdbc = jdbc;
+        this.rollupService = rollupService;
+        long now = System.currentTimeMillis();
+        for (TrendingWindow window : TrendingWindow.values()) {
+            if (window.isLive()) {
+                windows.put(window, new SlidingWindow(window, now));
+            }
+        }
+    }
+
+    /**
+     * Replays the tags of posts made within the longest window.
+     */
+    @PostConstruct
+    public void warm() {
+        long longest = 0;
+        for (TrendingWindow window : windows.keySet()) {
+            longest = Math.max(longest, window.getMillis());
+        }
+        Timestamp since = new Timestamp(System.currentTimeMillis() - longest);
+        final String sql = "SELECT h.tagText, p.createdAt FROM post p " +
+                           "JOIN post_hashtag ph ON ph.postId = p.postId " +
+                           "JOIN hashtag h ON h.tagId = ph.tagId " +
+                           "WHERE p.createdAt >= ?";
+        int[] replayed = { 0 };
+        jdbc.query(sql, rs -> {
+            String tag = rs.getString("tagText");
+            long createdAt = rs.getTimestamp("createdAt").getTime();
+            for (SlidingWindow window : windows.values()) {
+                window.add(tag, createdAt);
+            }
+            replayed[0]++;
+        }, since);
+        System.out.println("Trending warmed with " + replayed[0] + " recent tag uses");
+    }
+
+    /**
+     * Counts one use of each tag, now.
+     */
+    public void record(Collection<String> tags) {
+        long now = System.currentTimeMillis();
+        for (SlidingWindow window : windows.values()) {
+            for (String tag : tags) {
+                window.add(tag, now);
+            }
+        }
+    }
+
+    /**
+     * Returns the TOP_K most used tags in the window, most used first.
+     * Falls back to decayed scores for windows that are not live.
+     */
+    public List<TrendingHashtag> getTrendingHashtags(TrendingWindow window) {
+        SlidingWindow live = windows.get(window);
+        if (live == null) {
+            return getDecayedTrendingHashtags(window);
+        }
+        return live.top(TOP_K, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the TOP_K tags by time-decayed score from the hourly rollup.
+     */
+    public List<TrendingHashtag> getDecayedTrendingHashtags(TrendingWindow window) {
+        return rollupService.getDecayedTrendingHashtags(window, TOP_K);
     }
 
-    public List<String> getTrendingHashtags() {
-        List<String> trendingTags = new ArrayList<>();
-        final String sql = "SELECT tag_text FROM hashtags ORDER BY usage_count DESC LIMIT 5";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                trendingTags.add(rs.getString("tag_text"));
+    /**
+     * Ring of bucket sketches covering one TrendingWindow.
+     */
+    private static final class SlidingWindow {
+
+        private final long bucketMillis;
+        private final CountMinSketch[] buckets;
+        private final CountMinSketch windowTotal = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        private final Map<String, Integer> candidates = new HashMap<>();
+
+        // Absolute number (epoch millis / bucketMillis) of the newest bucket.
+        private long currentBucket;
+
+        SlidingWindow(TrendingWindow window, long now) {
+            this.bucketMillis = window.getBucketMillis();
+            this.buckets = new CountMinSketch[window.getBuckets()];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+            }
+            this.currentBucket = now / bucketMillis;
+        }
+
+        synchronized void add(String tag, long atMillis) {
+            advance(System.currentTimeMillis());
+            // Posts stamped slightly in the future (clock skew) count as now.
+            long bucket = Math.min(atMillis / bucketMillis, currentBucket);
+            if (bucket <= currentBucket - buckets.length) {
+                return;
+            }
+            buckets[slot(bucket)].add(tag, 1);
+            windowTotal.add(tag, 1);
+            offer(tag, windowTotal.estimate(tag));
+        }
+
+        synchronized List<TrendingHashtag> top(int k, long now) {
+            advance(now);
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>(candidates.entrySet());
+            entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            List<TrendingHashtag> top = new ArrayList<>(k);
+            for (int i = 0; i < Math.min(k, entries.size()); i++) {
+                top.add(new TrendingHashtag(entries.get(i).getKey(), entries.get(i).getValue()));
+            }
+            return top;
+        }
+
+        // Keeps tag if it is already a candidate, there is room, or it beats
+        // the weakest candidate.
+        private void offer(String tag, int estimate) {
+            if (candidates.containsKey(tag) || candidates.size() < CANDIDATES) {
+                candidates.put(tag, estimate);
+                return;
+            }
+            String weakest = null;
+            int weakestCount = Integer.MAX_VALUE;
+            for (Map.Entry<String, Integer> entry : candidates.entrySet()) {
+                if (entry.getValue() < weakestCount) {
+                    weakest = entry.getKey();
+                    weakestCount = entry.getValue();
+                }
+            }
+            if (estimate > weakestCount) {
+                candidates.remove(weakest);
+                candidates.put(tag, estimate);
+            }
+        }
+
+        // Drops buckets that fell out of the window and re-estimates the
+        // candidates against what is left.
+        private void advance(long now) {
+            long target = now / bucketMillis;
+            if (target <= currentBucket) {
+                return;
+            }
+            long first = Math.max(currentBucket + 1, target - buckets.length + 1);
+            for (long bucket = first; bucket <= target; bucket++) {
+                CountMinSketch expired = buckets[slot(bucket)];
+                windowTotal.subtract(expired);
+                expired.clear();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+            currentBucket = target;
+            candidates.replaceAll((tag, count) -> windowTotal.estimate(tag));
+            candidates.values().removeIf(count -> count <= 0);
+        }
+
+        private int slot(long bucket) {
+            return (int) (bucket % buckets.length);
         }
-        return trendingTags;
     }
 }
@@ -0,0 +1,66 @@
+package uga.menik.csx370.services;
+
+/**
+ * Time windows the trending page can be asked for. Live windows are a ring
+ * of fixed width buckets in TrendingService; every window can also be read
+ * from the hourly rollup with a decayed score (HashtagRollupService).
+ */
+public enum TrendingWindow {
+
+    HOUR(60, 60_000L, 0.5, true),
+    DAY(24, 3_600_000L, 6, true),
+    // Too long to keep in memory per instance; served from the rollup only.
+    WEEK(168, 3_600_000L, 36, false);
+
+    private final int buckets;
+    private final long bucketMillis;
+    private final double halfLifeHours;
+    private final boolean live;
+
+    TrendingWindow(int buckets, long bucketMillis, double halfLifeHours, boolean live) {
+        this.buckets = buckets;
+        this.bucketMillis = bucketMillis;
+        this.halfLifeHours = halfLifeHours;
+        this.live = live;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public long getMillis() {
+        return buckets * bucketMillis;
+    }
+
+    /**
+     * Age at which a use counts half as much in the decayed score.
+     */
+    public double getHalfLifeHours() {
+        return halfLifeHours;
+    }
+
+    /**
+     * Whether TrendingService keeps an in-memory sliding window for it.
+     */
+    public boolean isLive() {
+        return live;
+    }
+
+    /**
+     * Parses a request parameter such as "hour" or "week", defaulting to HOUR.
+     */
+    public static TrendingWindow fromParam(String value) {
+        if (value != null) {
+            for (TrendingWindow window : values()) {
+                if (window.name().equalsIgnoreCase(value.trim())) {
+                    return window;
+                }
+            }
+        }
+        return HOUR;
+    }
+}
@@ -0,0 +1,160 @@
+package uga.menik.csx370.services;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Compressed bitmaps of the postIds each active viewer has hearted and
+ * bookmarked, so ViewerStateService only asks MySQL about the few posts on
+ * a page that may carry a flag.
+ *
+ * A viewer's bitmaps are read from likes and bookmarks on first use and
+ * kept in a bounded cache. Toggles on this instance update them once their
+ * row is written; a load running at the same time finishes first, so the
+ * update is never lost. A set bit is only a possible positive and is
+ * confirmed against the table before it is shown.
+ *
+ * An unset bit is trusted, and that is only safe for toggles made on this
+ * instance. A heart or bookmark written by another instance is not in the
+ * bitmap until the entry expires, so for up to ttl-seconds this instance
+ * shows that post as not hearted / not bookmarked. A ttl of 0 turns the
+ * bitmaps off and every post on a page is looked up.
+ */
+@Service
+public class ViewerMembership {
+
+    /**
+     * One viewer's hearted and bookmarked postIds. Guarded by itself.
+     */
+    private static final class Membership {
+
+        final RoaringBitmap hearted;
+        final RoaringBitmap bookmarked;
+
+        Membership(RoaringBitmap hearted, RoaringBitmap bookmarked) {
+            this.hearted = hearted;
+            this.bookmarked = bookmarked;
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final boolean enabled;
+    private final Cache<Integer, Membership> members;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+
+    @Autowired
+    public ViewerMembership(JdbcTemplate jdbc,
+            @Value("${viewer-membership.max-users:50000}") long maxUsers,
+            @Value("${viewer-membership.ttl-seconds:30}") long ttlSeconds) {
+        this.jdbc = jdbc;
+        this.enabled = ttlSeconds > 0;
+        this.members = Caffeine.newBuilder()
+                .maximumSize(enabled ? maxUsers : 0)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(ttlSeconds, 1)))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns false only if the viewer has definitely not hearted the post.
+     */
+    public boolean mayHaveHearted(int userId, int postId) {
+        if (!enabled) {
+            return true;
+        }
+        Membership membership = members.get(userId, this::load);
+        synchronized (membership) {
+            return count(membership.hearted.contains(postId));
+        }
+    }
+
+    /**
+     * Returns false only if the viewer has definitely not bookmarked the post.
+     */
+    public boolean mayHaveBookmarked(int userId, int postId) {
+        if (!enabled) {
+            return true;
+        }
+        Membership membership = members.get(userId, this::load);
+        synchronized (membership) {
+            return count(membership.bookmarked.contains(postId));
+        }
+    }
+
+    public void hearted(int userId, int postId, boolean isHearted) {
+        members.asMap().computeIfPresent(userId, (k, membership) -> {
+            synchronized (membership) {
+                set(membership.hearted, postId, isHearted);
+            }
+            return membership;
+        });
+    }
+
+    public void bookmarked(int userId, int postId, boolean isBookmarked) {
+        members.asMap().computeIfPresent(userId, (k, membership) -> {
+            synchronized (membership) {
+                set(membership.bookmarked, postId, isBookmarked);
+            }
+            return membership;
+        });
+    }
+
+    private Membership load(int userId) {
+        return new Membership(loadPostIds("likes", userId), loadPostIds("bookmarks", userId));
+    }
+
+    // Served by the UNIQUE (userId, postId) index both tables have.
+    private RoaringBitmap loadPostIds(String table, int userId) {
+        RoaringBitmap postIds = new RoaringBitmap();
+        jdbc.query("SELECT postId FROM " + table + " WHERE userId = ?", rs -> {
+            postIds.add(rs.getInt("postId"));
+        }, userId);
+        postIds.runOptimize();
+        return postIds;
+    }
+
+    private static void set(RoaringBitmap bitmap, int postId, boolean value) {
+        if (value) {
+            bitmap.add(postId);
+        } else {
+            bitmap.remove(postId);
+        }
+    }
+
+    private boolean count(boolean maybe) {
+        lookups.increment();
+        if (!maybe) {
+            negatives.increment();
+        }
+        return maybe;
+    }
+
+    /**
+     * Cache and lookup counters for the stats page.
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = members.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("cachedUsers", members.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("lookups", lookups.sum());
+        result.put("definiteNegatives", negatives.sum());
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+package uga.menik.csx370.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import uga.menik.csx370.models.Post;
+import uga.menik.csx370.models.PostPage;
+
+/**
+ * Resolves the per-viewer flags of a page of posts (isHearted, isBookmarked)
+ * with one query per table for the whole page, instead of a correlated
+ * subquery per row. Post queries can then return viewer independent rows
+ * that are safe to cache and share, and the small per-viewer overlay is
+ * applied on the way out.
+ *
+ * Most posts carry neither flag, so ViewerMembership is asked first and
+ * only the posts it cannot rule out are looked up. On a typical page no
+ * query runs at all. The price is that a toggle made on another instance
+ * can be missed for up to viewer-membership.ttl-seconds; see
+ * ViewerMembership.
+ */
+@Service
+public class ViewerStateService {
+
+    private final JdbcTemplate jdbc;
+    private final ViewerMembership membership;
+
+    @Autowired
+    public ViewerStateService(JdbcTemplate jdbc, ViewerMembership membership) {
+        this.jdbc = jdbc;
+        this.membership = membership;
+    }
+
+    /**
+     * Returns a copy of the page with the viewer's flags filled in.
+     */
+    public PostPage applyViewerState(PostPage page, int viewerId) {
+        return new PostPage(applyViewerState(page.getPosts(), viewerId), page.getNextCursor());
+    }
+
+    /**
+     * Returns copies of the posts with the viewer's flags filled in.
+     * The given posts are not modified, so they can come from a shared cache.
+     */
+    public List<Post> applyViewerState(List<Post> posts, int viewerId) {
+        if (posts.isEmpty()) {
+            return posts;
+        }
+
+        List<Integer> postIds = new ArrayList<>(posts.size());
+        List<Integer> maybeHearted = new ArrayList<>();
+        List<Integer> maybeBookmarked = new ArrayList<>();
+        for (Post post : posts) {
+            int postId = Integer.parseInt(post.getPostId());
+            postIds.add(postId);
+            if (membership.mayHaveHearted(viewerId, postId)) {
+                maybeHearted.add(postId);
+            }
+            if (membership.mayHaveBookmarked(viewerId, postId)) {
+                maybeBookmarked.add(postId);
+            }
+        }
+        Set<Integer> hearted = findPostIds("likes", viewerId, maybeHearted);
+        Set<Integer> bookmarked = findPostIds("bookmarks", viewerId, maybeBookmarked);
+
+        List<Post> result = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            Integer postId = postIds.get(i);
+            result.add(posts.get(i).withViewerState(hearted.contains(postId), bookmarked.contains(postId)));
+        }
+        return result;
+    }
+
+    // Which of postIds the user has a row for in table. Served by the
+    // UNIQUE (userId, postId) index both tables have.
+    private Set<Integer> findPostIds(String table, int userId, List<Integer> postIds) {
+        if (postIds.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(postIds.size(), "?"));
+        String sql = "SELECT postId FROM " + table + " WHERE userId = ? AND postId IN (" + placeholders + ")";
+
+        List<Object> params = new ArrayList<>(postIds.size() + 1);
+        params.add(userId);
+        params.addAll(postIds);
+        return new HashSet<>(jdbc.queryForList(sql, Integer.class, params.toArray()));
+    }
+}
@@ -0,0 +1,112 @@
+package uga.menik.csx370.utility;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min Sketch over strings.
+ *
+ * Keeps depth rows of width counters. An item bumps one counter per row
+ * and its estimate is the smallest of those counters, so estimates never
+ * undercount and overcount by at most about total / width with high
+ * probability. Sketches of the same shape can be added to and subtracted
+ * from each other, which is what lets a sliding window drop an old bucket.
+ *
+ * Not thread safe; callers synchronize.
+ */
+public final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final int[][] counts;
+    private long total;
+
+    /**
+     * width is rounded up to a power of two.
+     */
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(width, 2) - 1) << 1;
+        this.counts = new int[depth][this.width];
+    }
+
+    /**
+     * Adds count occurrences of item.
+     */
+    public void add(String item, int count) {
+        int hash = item.hashCode();
+        for (int row = 0; row < depth; row++) {
+            counts[row][index(hash, row)] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * Upper bound on the number of times item was added.
+     */
+    public int estimate(String item) {
+        int hash = item.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row][index(hash, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Adds every counter of other into this sketch.
+     */
+    public void merge(CountMinSketch other) {
+        checkShape(other);
+        for (int row = 0; row < depth; row++) {
+            int[] mine = counts[row];
+            int[] theirs = other.counts[row];
+            for (int i = 0; i < width; i++) {
+                mine[i] += theirs[i];
+            }
+        }
+        total += other.total;
+    }
+
+    /**
+     * Removes every counter of other from this sketch. other must have been
+     * merged into this sketch before.
+     */
+    public void subtract(CountMinSketch other) {
+        checkShape(other);
+        for (int row = 0; row < depth; row++) {
+            int[] mine = counts[row];
+            int[] theirs = other.counts[row];
+            for (int i = 0; i < width; i++) {
+                mine[i] -= theirs[i];
+            }
+        }
+        total -= other.total;
+    }
+
+    public void clear() {
+        for (int[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+        total = 0;
+    }
+
+    /**
+     * Sum of all counts added.
+     */
+    public long total() {
+        return total;
+    }
+
+    // Double hashing: row i uses h1 + i * h2, with h2 forced odd.
+    private int index(int hash, int row) {
+        int h1 = hash ^ (hash >>> 16);
+        int h2 = (hash * 0x9E3779B9) | 1;
+        return (h1 + row * h2) & (width - 1);
+    }
+
+    private void checkShape(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Sketch shapes differ");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package uga.menik.csx370.utility;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A parsed hashtag search query.
+ *
+ * Whitespace separated terms:
+ *   #tag   must have this tag (AND), as plain searches always have
+ *   tag    same as #tag; the '#' may be left off after any operator too
+ *   +#tag  same as #tag
+ *   ~#tag  any of these tags (OR)
+ *   -#tag  must not have this tag (NOT)
+ * A post matches when it has every required tag, at least one of the
+ * optional tags if there are any, and none of the excluded tags.
+ */
+public final class HashtagQuery {
+
+    private final Set<String> required = new HashSet<>();
+    private final Set<String> optional = new HashSet<>();
+    private final Set<String> excluded = new HashSet<>();
+
+    private HashtagQuery() {
+    }
+
+    /**
+     * Parses the raw query typed into the search box.
+     */
+    public static HashtagQuery parse(String query) {
+        HashtagQuery parsed = new HashtagQuery();
+        if (query == null) {
+            return parsed;
+        }
+        for (String term : query.trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            char operator = term.charAt(0);
+            if (operator == '+') {
+                parsed.required.addAll(tags(term.substring(1)));
+            } else if (operator == '~') {
+                parsed.optional.addAll(tags(term.substring(1)));
+            } else if (operator == '-') {
+                parsed.excluded.addAll(tags(term.substring(1)));
+            } else {
+                parsed.required.addAll(tags(term));
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Tags in one operand. The '#' is optional, so "fireworks" and
+     * "-fireworks" mean the same as "#fireworks" and "-#fireworks".
+     */
+    private static Set<String> tags(String operand) {
+        if (operand.isEmpty() || operand.charAt(0) == HashtagTokenizer.HASHTAG) {
+            return HashtagTokenizer.hashtags(operand);
+        }
+        return HashtagTokenizer.hashtags(HashtagTokenizer.HASHTAG + operand);
+    }
+
+    /**
+     * True if the query cannot match anything because it has no positive terms.
+     */
+    public boolean isEmpty() {
+        return required.isEmpty() && optional.isEmpty();
+    }
+
+    /**
+     * Every tag mentioned in the query.
+     */
+    public Set<String> allTags() {
+        Set<String> all = new HashSet<>(required);
+        all.addAll(optional);
+        all.addAll(excluded);
+        return all;
+    }
+
+    public Set<String> getRequired() {
+        return required;
+    }
+
+    public Set<String> getOptional() {
+        return optional;
+    }
+
+    public Set<String> getExcluded() {
+        return excluded;
+    }
+}
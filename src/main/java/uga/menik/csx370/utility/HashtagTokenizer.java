@@ -0,0 +1,106 @@
+package uga.menik.csx370.utility;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Single pass tokenizer for #hashtags and @mentions.
+ *
+ * A token is the sigil followed by one or more ASCII letters, digits or
+ * underscores, which is what the old "#(\\w+)" regex matched. The text is
+ * scanned once, each token is lowercased into a reused per-thread buffer,
+ * and the canonical String for it is returned. Tags that have been seen
+ * before come out of a small lock-free intern table without allocating.
+ */
+public final class HashtagTokenizer {
+
+    public static final char HASHTAG = '#';
+    public static final char MENTION = '@';
+
+    // hashtag.tagText is VARCHAR(100); longer tokens are skipped.
+    public static final int MAX_TOKEN_LENGTH = 100;
+
+    // Direct mapped intern table. A slot holds the last string that hashed
+    // to it, so the table never grows and a collision just costs one allocation.
+    private static final int INTERN_SLOTS = 1 << 14;
+    private static final AtomicReferenceArray<String> INTERNED = new AtomicReferenceArray<>(INTERN_SLOTS);
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(MAX_TOKEN_LENGTH));
+
+    private HashtagTokenizer() {
+    }
+
+    /**
+     * Returns the distinct lowercase hashtags in text, without the '#'.
+     */
+    public static Set<String> hashtags(CharSequence text) {
+        Set<String> tags = new HashSet<>();
+        forEachToken(text, HASHTAG, tags::add);
+        return tags;
+    }
+
+    /**
+     * Returns the distinct lowercase mentions in text, without the '@'.
+     */
+    public static Set<String> mentions(CharSequence text) {
+        Set<String> names = new HashSet<>();
+        forEachToken(text, MENTION, names::add);
+        return names;
+    }
+
+    /**
+     * Passes every token that starts with sigil to sink, in order of appearance.
+     */
+    public static void forEachToken(CharSequence text, char sigil, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder buffer = BUFFER.get();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (text.charAt(i) != sigil) {
+                i++;
+                continue;
+            }
+
+            buffer.setLength(0);
+            int hash = 0;
+            int j = i + 1;
+            while (j < length && isWordChar(text.charAt(j))) {
+                char c = toLowerAscii(text.charAt(j));
+                buffer.append(c);
+                hash = 31 * hash + c;
+                j++;
+            }
+
+            if (j > i + 1 && buffer.length() <= MAX_TOKEN_LENGTH) {
+                sink.accept(intern(buffer, hash));
+            }
+            i = j > i + 1 ? j : i + 1;
+        }
+    }
+
+    // hash is the String.hashCode() of buffer, computed while scanning.
+    private static String intern(StringBuilder buffer, int hash) {
+        int slot = (hash ^ (hash >>> 16)) & (INTERN_SLOTS - 1);
+        String existing = INTERNED.get(slot);
+        if (existing != null && existing.hashCode() == hash && existing.contentEquals(buffer)) {
+            return existing;
+        }
+        String created = buffer.toString();
+        INTERNED.set(slot, created);
+        return created;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static char toLowerAscii(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -20,4 +20,57 @@ document.addEventListener('DOMContentLoaded', function () {
             }
         });
     }
+
+    // Hashtag suggestions while typing, see HashtagAutocompleteController.java.
+    // Waits for a pause in typing so a word costs one request, not one per key.
+    var hashtagInput = document.querySelector('input[list="hashtag-suggestions"]');
+    if (hashtagInput) {
+        var suggestions = document.getElementById('hashtag-suggestions');
+        var timer = null;
+
+        hashtagInput.addEventListener('input', function () {
+            clearTimeout(timer);
+            var text = hashtagInput.value;
+            var words = text.split(/\s+/);
+            var last = words[words.length - 1].replace(/^[+~-]/, '');
+            if (!last.startsWith('#') || last.length < 2) {
+                suggestions.innerHTML = '';
+                return;
+            }
+            timer = setTimeout(function () {
+                fetch('/hashtags/autocomplete?prefix=' + encodeURIComponent(last))
+                    .then(function (response) { return response.json(); })
+                    .then(function (tags) {
+                        // Options hold the whole input so picking one only completes the last word.
+                        var before = text.substring(0, text.length - last.length);
+                        suggestions.innerHTML = '';
+                        for (var tag of tags) {
+                            var option = document.createElement('option');
+                            option.value = before + '#' + tag.tag;
+                            suggestions.appendChild(option);
+                        }
+                    });
+            }, 150);
+        });
+    }
+
+    // Live updates from the server, see LiveEventController.java.
+    // EventSource reconnects on its own if the connection drops.
+    if (window.EventSource && document.getElementById('unread-badge')) {
+        var events = new EventSource('/events');
+
+        events.addEventListener('post', function () {
+            document.getElementById('new-posts-banner').hidden = false;
+        });
+
+        events.addEventListener('notification', function (e) {
+            var unread = JSON.parse(e.data).unread;
+            document.getElementById('unread-badge').textContent = unread > 0 ? ' (' + unread + ')' : '';
+        });
+
+        // Leaving the page closes the stream right away instead of on the next heartbeat.
+        window.addEventListener('pagehide', function () {
+            events.close();
+        });
+    }
 });
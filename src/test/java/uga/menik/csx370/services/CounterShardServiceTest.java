@@ -0,0 +1,84 @@
+package uga.menik.csx370.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Rate detection of CounterShardService and a contention microbenchmark
+ * of the write counter. Nothing here touches the database: posts are
+ * only folded back after the cool down, which these tests never reach.
+ */
+public class CounterShardServiceTest extends TestCase {
+
+    private static CounterShardService service(long thresholdPerSecond) {
+        return new CounterShardService(null, null, 16, thresholdPerSecond, 300000);
+    }
+
+    public void testPostWrittenFasterThanThresholdIsSharded() throws Exception {
+        CounterShardService shards = service(20);
+        for (int i = 0; i < 100; i++) {
+            shards.recordWrite(1);
+        }
+        shards.recordWrite(2);
+        Thread.sleep(200);
+        shards.checkRates();
+
+        assertTrue(shards.isSharded(1));
+        assertFalse(shards.isSharded(2));
+    }
+
+    public void testQuietPostIsNoLongerTracked() throws Exception {
+        CounterShardService shards = service(1000);
+        shards.recordWrite(3);
+        Thread.sleep(20);
+        shards.checkRates();
+        assertEquals(1L, ((Number) shards.stats().get("trackedPosts")).longValue());
+
+        shards.checkRates();
+        assertEquals(0L, ((Number) shards.stats().get("trackedPosts")).longValue());
+        assertFalse(shards.isSharded(3));
+    }
+
+    public void testConcurrentWritesToOneHotPost() throws Exception {
+        int threads = 8;
+        int writesPerThread = 250000;
+        CounterShardService shards = service(20);
+
+        long samePost = run(threads, writesPerThread, thread -> shards.recordWrite(42));
+        long ownPost = run(threads, writesPerThread, thread -> shards.recordWrite(1000 + thread));
+        long writes = (long) threads * writesPerThread;
+        System.out.println("recordWrite, " + threads + " threads: one post "
+                + samePost / writes + " ns/write, one post per thread "
+                + ownPost / writes + " ns/write");
+
+        shards.checkRates();
+        assertTrue(shards.isSharded(42));
+    }
+
+    private interface Writer {
+        void write(int thread);
+    }
+
+    // Runs writesPerThread writes on each of threads threads, returns the wall time in ns.
+    private static long run(int threads, int writesPerThread, Writer writer) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < writesPerThread; i++) {
+                    writer.write(thread);
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+}
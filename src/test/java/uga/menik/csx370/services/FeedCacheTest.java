@@ -0,0 +1,53 @@
+package uga.menik.csx370.services;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import uga.menik.csx370.models.PostCursor;
+import uga.menik.csx370.models.PostPage;
+
+public class FeedCacheTest extends TestCase {
+
+    private FeedCache cache;
+    private AtomicInteger loads;
+
+    @Override
+    protected void setUp() {
+        cache = new FeedCache(1000, 60);
+        loads = new AtomicInteger();
+    }
+
+    private PostPage get(int userId, String before) {
+        return cache.get(userId, PostCursor.parse(before), 20, () -> {
+            loads.incrementAndGet();
+            return new PostPage(List.of(), null);
+        });
+    }
+
+    public void testMissingAndMalformedCursorShareTheFirstPage() {
+        get(1, null);
+        get(1, "");
+        get(1, "garbage");
+        get(1, "abc_def");
+        assertEquals(1, loads.get());
+    }
+
+    public void testEquivalentTokensShareAnEntry() {
+        get(1, "1700000000000_42");
+        get(1, "01700000000000_042");
+        assertEquals(1, loads.get());
+
+        get(1, "1700000000000_41");
+        assertEquals(2, loads.get());
+    }
+
+    public void testInvalidateDropsOnlyThatUser() {
+        get(1, null);
+        get(2, null);
+        cache.invalidateUser(1);
+        get(1, null);
+        get(2, null);
+        assertEquals(3, loads.get());
+    }
+}
@@ -0,0 +1,126 @@
+package uga.menik.csx370.services;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import junit.framework.TestCase;
+
+/**
+ * Counts the statements HashtagDictionary sends for a post's tags. The
+ * hashtag table is faked in memory by a JdbcTemplate that records every
+ * statement it is given.
+ */
+public class HashtagDictionaryTest extends TestCase {
+
+    /**
+     * Just enough of the hashtag table for the upsert and the IN lookup.
+     */
+    private static final class FakeJdbc extends JdbcTemplate {
+
+        final Map<String, Integer> hashtags = new HashMap<>();
+        final List<String> statements = new ArrayList<>();
+        final List<Object[]> arguments = new ArrayList<>();
+
+        @Override
+        public int update(String sql, Object... args) {
+            statements.add(sql);
+            arguments.add(args);
+            int inserted = 0;
+            for (Object tag : args) {
+                if (hashtags.putIfAbsent((String) tag, hashtags.size() + 1) == null) {
+                    inserted++;
+                }
+            }
+            return inserted;
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            statements.add(sql);
+            arguments.add(args);
+            for (Object tag : args) {
+                Integer tagId = hashtags.get(tag);
+                if (tagId != null) {
+                    try {
+                        handler.processRow(row((String) tag, tagId));
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        }
+
+        private static ResultSet row(String tagText, int tagId) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, (proxy, method, args) ->
+                            switch (method.getName() + " " + args[0]) {
+                                case "getString tagText" -> tagText;
+                                case "getInt tagId" -> tagId;
+                                default -> throw new UnsupportedOperationException(method.getName());
+                            });
+        }
+    }
+
+    private FakeJdbc jdbc;
+    private HashtagDictionary dictionary;
+
+    @Override
+    protected void setUp() {
+        jdbc = new FakeJdbc();
+        dictionary = new HashtagDictionary(jdbc, new HashtagAutocomplete(jdbc), 1000);
+    }
+
+    public void testNewTagsTakeTwoStatementsForAnyCount() {
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tags.add("tag" + (9 - i));
+        }
+        Map<String, Integer> tagIds = dictionary.getOrCreate(tags);
+
+        assertEquals(10, tagIds.size());
+        assertEquals(2, jdbc.statements.size());
+        assertTrue(jdbc.statements.get(0).startsWith("INSERT INTO hashtag"));
+        assertTrue(jdbc.statements.get(1).startsWith("SELECT tagId, tagText FROM hashtag"));
+    }
+
+    public void testUpsertLocksTagsInSortedOrder() {
+        dictionary.getOrCreate(Arrays.asList("zebra", "apple", "mango"));
+        assertEquals(Arrays.asList("apple", "mango", "zebra"), Arrays.asList(jdbc.arguments.get(0)));
+    }
+
+    public void testKnownTagsNeedNoStatements() {
+        Map<String, Integer> first = dictionary.getOrCreate(Arrays.asList("a", "b"));
+        jdbc.statements.clear();
+        Map<String, Integer> second = dictionary.getOrCreate(Arrays.asList("b", "a"));
+
+        assertEquals(first, second);
+        assertTrue(jdbc.statements.isEmpty());
+    }
+
+    public void testOnlyMissingTagsAreUpserted() {
+        dictionary.getOrCreate(Arrays.asList("a", "b"));
+        jdbc.statements.clear();
+        jdbc.arguments.clear();
+        Map<String, Integer> tagIds = dictionary.getOrCreate(Arrays.asList("a", "b", "c"));
+
+        assertEquals(3, tagIds.size());
+        assertEquals(2, jdbc.statements.size());
+        assertEquals(Arrays.asList("c"), Arrays.asList(jdbc.arguments.get(0)));
+    }
+
+    public void testResolveDoesNotCreate() {
+        Map<String, Integer> tagIds = dictionary.resolve(Arrays.asList("unknown"));
+        assertTrue(tagIds.isEmpty());
+        assertEquals(1, jdbc.statements.size());
+        assertTrue(jdbc.hashtags.isEmpty());
+    }
+}
@@ -0,0 +1,171 @@
+package uga.menik.csx370.services;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import junit.framework.TestCase;
+import uga.menik.csx370.models.Post;
+import uga.menik.csx370.models.PostPage;
+
+/**
+ * Paging and hydration of free text search. MySQL is faked: the ranking
+ * query returns a fixed relevance order and the hydration query returns
+ * rows in postId order, the way an IN lookup on the primary key does.
+ */
+public class PostServiceSearchTest extends TestCase {
+
+    private static final class FakeJdbc extends JdbcTemplate {
+
+        List<Integer> ranked = new ArrayList<>();
+        List<Integer> deleted = new ArrayList<>();
+        final List<String> statements = new ArrayList<>();
+        Object[] rankArgs;
+        int hydrated;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            statements.add(sql);
+            if (!sql.contains("MATCH(content)")) {
+                // Viewer flag lookups: the viewer has hearted and bookmarked nothing.
+                return List.of();
+            }
+            rankArgs = args;
+            int limit = (Integer) args[2];
+            int offset = (Integer) args[3];
+            List<Integer> page = ranked.subList(Math.min(offset, ranked.size()), Math.min(offset + limit, ranked.size()));
+            return (List<T>) new ArrayList<>(page);
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            statements.add(sql);
+            hydrated = args.length;
+            List<Integer> postIds = new ArrayList<>();
+            for (Object arg : args) {
+                if (!deleted.contains(arg)) {
+                    postIds.add((Integer) arg);
+                }
+            }
+            postIds.sort(null);
+            List<T> rows = new ArrayList<>();
+            try {
+                for (int postId : postIds) {
+                    rows.add(rowMapper.mapRow(row(postId), rows.size()));
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            return rows;
+        }
+
+        private static ResultSet row(int postId) {
+            Map<String, Object> columns = Map.of(
+                    "postId", postId, "content", "post " + postId,
+                    "createdAt", new Timestamp(1700000000000L + postId),
+                    "userId", 1, "firstName", "Ada", "lastName", "Lovelace",
+                    "heartsCount", 0, "commentsCount", 0);
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, (proxy, method, args) -> columns.get(args[0]));
+        }
+    }
+
+    private FakeJdbc jdbc;
+    private PostService postService;
+
+    @Override
+    protected void setUp() throws Exception {
+        jdbc = new FakeJdbc();
+        postService = new PostService();
+        ViewerMembership membership = new ViewerMembership(jdbc, 10, 0);
+        inject("jdbc", jdbc);
+        inject("viewerStateService", new ViewerStateService(jdbc, membership));
+    }
+
+    private void inject(String field, Object value) throws Exception {
+        Field f = PostService.class.getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(postService, value);
+    }
+
+    private static List<Integer> range(int from, int count) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(from + i);
+        }
+        return ids;
+    }
+
+    private static List<String> postIds(PostPage page) {
+        List<String> ids = new ArrayList<>();
+        for (Post post : page.getPosts()) {
+            ids.add(post.getPostId());
+        }
+        return ids;
+    }
+
+    public void testBlankQueryRunsNothing() {
+        PostPage page = postService.searchPosts("  ", 1, null, 20);
+        assertTrue(page.getPosts().isEmpty());
+        assertTrue(jdbc.statements.isEmpty());
+    }
+
+    public void testResultsKeepRelevanceOrder() {
+        jdbc.ranked = List.of(50, 7, 33, 12);
+        PostPage page = postService.searchPosts("database indexes", 1, null, 20);
+
+        assertEquals(List.of("50", "7", "33", "12"), postIds(page));
+        assertNull(page.getNextCursor());
+    }
+
+    public void testFirstPageHydratesOnlyThePageShown() {
+        jdbc.ranked = range(1, 45);
+        PostPage page = postService.searchPosts("database", 1, null, 20);
+
+        assertEquals(20, page.getPosts().size());
+        assertEquals("2", page.getNextCursor());
+        assertEquals(21, jdbc.rankArgs[2]);
+        assertEquals(0, jdbc.rankArgs[3]);
+        assertEquals(20, jdbc.hydrated);
+    }
+
+    public void testLastPageHasNoNextCursor() {
+        jdbc.ranked = range(1, 45);
+        PostPage page = postService.searchPosts("database", 1, "3", 20);
+
+        assertEquals(List.of("41", "42", "43", "44", "45"), postIds(page));
+        assertNull(page.getNextCursor());
+        assertEquals(40, jdbc.rankArgs[3]);
+    }
+
+    public void testPageNumberIsCappedAtMaxSearchPages() {
+        jdbc.ranked = range(1, 1000);
+        PostPage page = postService.searchPosts("database", 1, "999", 20);
+
+        assertEquals((PostService.MAX_SEARCH_PAGES - 1) * 20, jdbc.rankArgs[3]);
+        assertEquals(20, page.getPosts().size());
+        assertNull(page.getNextCursor());
+    }
+
+    public void testBadPageNumberStartsFromTheTop() {
+        jdbc.ranked = range(1, 5);
+        postService.searchPosts("database", 1, "abc", 20);
+        assertEquals(0, jdbc.rankArgs[3]);
+    }
+
+    public void testPostsDeletedAfterRankingAreSkipped() {
+        jdbc.ranked = List.of(9, 8, 7);
+        jdbc.deleted = List.of(8);
+        PostPage page = postService.searchPosts("database", 1, null, 20);
+        assertEquals(List.of("9", "7"), postIds(page));
+    }
+}
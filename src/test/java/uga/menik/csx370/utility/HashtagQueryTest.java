@@ -0,0 +1,53 @@
+package uga.menik.csx370.utility;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class HashtagQueryTest extends TestCase {
+
+    private static Set<String> set(String... tags) {
+        return new HashSet<>(Arrays.asList(tags));
+    }
+
+    public void testBareTermIsRequired() {
+        HashtagQuery query = HashtagQuery.parse("fireworks");
+        assertEquals(set("fireworks"), query.getRequired());
+        assertTrue(query.getOptional().isEmpty());
+        assertTrue(query.getExcluded().isEmpty());
+    }
+
+    public void testPlusWithoutHashIsRequired() {
+        HashtagQuery query = HashtagQuery.parse("+fireworks");
+        assertEquals(set("fireworks"), query.getRequired());
+    }
+
+    public void testTildeWithoutHashIsOptional() {
+        HashtagQuery query = HashtagQuery.parse("~a ~b");
+        assertTrue(query.getRequired().isEmpty());
+        assertEquals(set("a", "b"), query.getOptional());
+        assertFalse(query.isEmpty());
+    }
+
+    public void testMinusWithHashIsExcluded() {
+        HashtagQuery query = HashtagQuery.parse("-#x");
+        assertEquals(set("x"), query.getExcluded());
+        assertTrue(query.isEmpty());
+    }
+
+    public void testMixedQuery() {
+        HashtagQuery query = HashtagQuery.parse("  #Fireworks ~a  ~#b -x ");
+        assertEquals(set("fireworks"), query.getRequired());
+        assertEquals(set("a", "b"), query.getOptional());
+        assertEquals(set("x"), query.getExcluded());
+        assertEquals(set("fireworks", "a", "b", "x"), query.allTags());
+    }
+
+    public void testOperatorAloneIsIgnored() {
+        HashtagQuery query = HashtagQuery.parse("+ ~ - #");
+        assertTrue(query.allTags().isEmpty());
+        assertTrue(HashtagQuery.parse(null).isEmpty());
+    }
+}
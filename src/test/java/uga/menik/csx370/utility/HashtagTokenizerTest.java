@@ -0,0 +1,113 @@
+package uga.menik.csx370.utility;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks HashtagTokenizer against the "#(\\w+)" regex it replaced, and
+ * times the two on the same texts.
+ */
+public class HashtagTokenizerTest extends TestCase {
+
+    private static final Pattern OLD_HASHTAG = Pattern.compile("#(\\w+)");
+    private static final String ALPHABET = "abcXYZ019_ #@#-.\t\u00e9";
+
+    // What createPost extracted before the tokenizer, plus its length cap.
+    private static Set<String> regexHashtags(String text) {
+        Set<String> tags = new HashSet<>();
+        Matcher matcher = OLD_HASHTAG.matcher(text);
+        while (matcher.find()) {
+            String tag = matcher.group(1).toLowerCase();
+            if (tag.length() <= HashtagTokenizer.MAX_TOKEN_LENGTH) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    private static String[] randomTexts(int count, long seed) {
+        Random random = new Random(seed);
+        String[] texts = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(280);
+            for (int j = 0; j < length; j++) {
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            texts[i] = text.toString();
+        }
+        return texts;
+    }
+
+    public void testMatchesOldRegexOnRandomText() {
+        for (String text : randomTexts(20000, 370)) {
+            assertEquals(text, regexHashtags(text), HashtagTokenizer.hashtags(text));
+        }
+    }
+
+    public void testLowercasesAndStopsAtNonWordChars() {
+        Set<String> tags = HashtagTokenizer.hashtags("#Fire-works #GO_dawgs! ## #\u00e9t\u00e9 #2024");
+        Set<String> expected = new HashSet<>();
+        expected.add("fire");
+        expected.add("go_dawgs");
+        expected.add("2024");
+        assertEquals(expected, tags);
+    }
+
+    public void testMentions() {
+        assertEquals(Set.of("alice", "bob"), HashtagTokenizer.mentions("hi @Alice and @bob, #notamention"));
+    }
+
+    public void testSkipsTokensLongerThanTagText() {
+        String longTag = "a".repeat(HashtagTokenizer.MAX_TOKEN_LENGTH + 1);
+        assertTrue(HashtagTokenizer.hashtags("#" + longTag).isEmpty());
+        assertEquals(1, HashtagTokenizer.hashtags("#" + longTag.substring(1)).size());
+    }
+
+    public void testRepeatedTagsShareOneString() {
+        String first = HashtagTokenizer.hashtags("#uga").iterator().next();
+        String second = HashtagTokenizer.hashtags("text #UGA").iterator().next();
+        assertSame(first, second);
+    }
+
+    public void testTimingAgainstRegex() {
+        String[] texts = randomTexts(20000, 1370);
+        // Warm both paths before timing them.
+        for (int round = 0; round < 3; round++) {
+            for (String text : texts) {
+                regexHashtags(text);
+                HashtagTokenizer.hashtags(text);
+            }
+        }
+
+        long regexNanos = time(() -> {
+            for (String text : texts) {
+                regexHashtags(text);
+            }
+        });
+        long tokenizerNanos = time(() -> {
+            for (String text : texts) {
+                HashtagTokenizer.hashtags(text);
+            }
+        });
+        System.out.println("hashtags from " + texts.length + " texts: regex " + regexNanos / 1000000
+                + " ms, tokenizer " + tokenizerNanos / 1000000 + " ms");
+        // Loose on purpose so a busy machine does not fail the build.
+        assertTrue(tokenizerNanos < 2 * regexNanos);
+    }
+
+    private static long time(Runnable work) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            work.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}